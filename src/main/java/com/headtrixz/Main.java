@@ -1,6 +1,8 @@
 package com.headtrixz;
 
 import com.headtrixz.benchmark.Benchmark;
+import com.headtrixz.benchmark.Perft;
+import com.headtrixz.benchmark.ProbCutCalibration;
 import com.headtrixz.factory.MiniMaxFactory.MiniMaxType;
 import com.headtrixz.ui.UIManager;
 import javafx.application.Application;
@@ -19,6 +21,17 @@ public class Main {
             Benchmark.benchmark(MiniMaxType.MiniMaxOptimized);
             return;
         }
+        if (args.length > 0 && args[0].equals("p")) {
+            Perft.perft(args.length > 1 ? Integer.parseInt(args[1]) : 8);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("c")) {
+            ProbCutCalibration.calibrate(
+                args.length > 1 ? Integer.parseInt(args[1]) : 8,
+                args.length > 2 ? args[2] : null
+            );
+            return;
+        }
         Application.launch(UIManager.class, args);
     }
 }
@@ -0,0 +1,593 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.BitBoard;
+import com.headtrixz.game.MoveList;
+import com.headtrixz.game.Othello;
+
+/**
+ * Solves the end of a game of Othello perfectly by searching every line to the end of the game.
+ * The search works on the bitboards directly, without the game model, and scores positions by
+ * the final difference in discs. The moves are searched fastest-first: the move that leaves the
+ * opponent the fewest replies goes first. In the last few empties sorting costs more than it
+ * saves, there the empties in regions with an odd number of empties are tried first instead.
+ */
+public class EndgameSolver implements MiniMax {
+    /**
+     * What the solver proves about a position.
+     */
+    public enum Mode {
+        /**
+         * Only whether the position is won, lost or drawn, scored 1, -1 and 0. Searching with
+         * this narrow window is a lot faster than solving the exact score.
+         */
+        WIN_LOSS_DRAW,
+
+        /**
+         * The final difference in discs between the player and the opponent.
+         */
+        EXACT
+    }
+
+    private static final int CELLS = 64;
+    private static final int TABLE_BITS = 20;
+    private static final int NO_CUTOFF = Integer.MIN_VALUE;
+
+    // Below these amounts of empties sorting, the transposition table and looking for stable
+    // discs cost more than they save.
+    private static final int SORT_EMPTIES = 6;
+    private static final int TABLE_EMPTIES = 8;
+    private static final int STABILITY_EMPTIES = 3;
+
+    private static final long[] QUADRANTS = {
+        0x000000000f0f0f0fL, 0x00000000f0f0f0f0L, 0x0f0f0f0f00000000L, 0xf0f0f0f000000000L
+    };
+
+    private final Othello baseGame;
+    private final MoveList[] moveLists;
+    private final int[][] orderScores;
+    private final PrincipalVariation principalVariation;
+    private final TranspositionTable transpositionTable;
+    private final SearchContext context = new SearchContext();
+    private float rootScore;
+
+    /**
+     * Solves the end of a game of Othello perfectly.
+     *
+     * @param game The game the AI is currently playing in.
+     */
+    public EndgameSolver(Othello game) {
+        this.baseGame = game;
+        this.transpositionTable = new TranspositionTable(TABLE_BITS);
+
+        // One move list per amount of empties, so sorting moves does not allocate.
+        this.moveLists = new MoveList[CELLS + 1];
+        this.orderScores = new int[CELLS + 1][CELLS];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList(CELLS);
+        }
+
+        // Every move fills an empty and passes are never two in a row, so a line is at most
+        // twice as long as there are empties.
+        this.principalVariation = new PrincipalVariation(2 * CELLS);
+    }
+
+    /**
+     * Returns the move with the best final score for the current player.
+     */
+    @Override
+    public int getMove() {
+        return solve(Mode.EXACT).move();
+    }
+
+    /**
+     * Returns the move with the best final score for the current player, the depth is ignored.
+     *
+     * @param maxDepth The max depth the algorithm should search.
+     */
+    @Override
+    public int getMove(int maxDepth) {
+        return getMove();
+    }
+
+    /**
+     * Returns the best move the solver can prove in time.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The best move of the board.
+     */
+    @Override
+    public int iterativeDeepening(int timeout) {
+        return search(timeout).move();
+    }
+
+    /**
+     * Proves whether the position is won, lost or drawn and then solves the exact score, for as
+     * long as the time allows. The exact score only has to be searched on the side of zero the
+     * first result is on. The result holds the last mode that finished, a result that did not
+     * even finish the first mode has the first move and a score of NaN.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The result of the search, its depth is the number of empties that were solved.
+     */
+    @Override
+    public SearchResult search(int timeout) {
+        context.start(timeout);
+
+        SearchResult result = prove(Mode.WIN_LOSS_DRAW);
+        if (context.isAborted()) {
+            result = null;
+        } else if (result.score() != 0) {
+            // A draw is already exact, the window of -1 to 1 holds its score.
+            SearchResult exact = result.score() > 0
+                ? solveWindow(0, CELLS + 1)
+                : solveWindow(-CELLS - 1, 0);
+            if (!context.isAborted()) {
+                result = exact;
+            }
+        }
+
+        if (result == null) {
+            int player = baseGame.getCurrentPlayer().getId();
+            long moves = baseGame.getMoveMask(player);
+            int move = moves == 0 ? -1 : Long.numberOfTrailingZeros(moves);
+            int[] pv = move == -1 ? new int[0] : new int[] {move};
+            result = new SearchResult(move, Float.NaN, 0, pv);
+        }
+
+        return result;
+    }
+
+    /**
+     * Solves the position of the current player without a time limit. A solve that is stopped
+     * returns a move of -1.
+     *
+     * @param mode What to prove.
+     * @return The best move, its score in the mode and the line both players play after it.
+     */
+    public SearchResult solve(Mode mode) {
+        context.start();
+        return prove(mode);
+    }
+
+    /**
+     * Stops the running search or solve, a search returns the best result it has finished so
+     * far.
+     */
+    @Override
+    public void stop() {
+        context.stop();
+    }
+
+    /**
+     * Clears a stop, so the next search runs again.
+     */
+    @Override
+    public void reset() {
+        context.reset();
+    }
+
+    /**
+     * Solves the position of the current player in a mode, within the time of the context.
+     *
+     * @param mode What to prove.
+     * @return The best move, its score in the mode and the line both players play after it.
+     */
+    private SearchResult prove(Mode mode) {
+        if (mode == Mode.EXACT) {
+            return solveWindow(-CELLS - 1, CELLS + 1);
+        }
+
+        // With a window of -1 to 1 the scores only tell whether a move wins, loses or draws.
+        SearchResult result = solveWindow(-1, 1);
+        return new SearchResult(result.move(), Math.signum(result.score()), result.depth(),
+            result.pv());
+    }
+
+    /**
+     * Solves the position of the current player within a window. The score is exact when it
+     * falls inside the window, otherwise it is only a bound.
+     *
+     * @param alpha The lower bound of the window.
+     * @param beta  The upper bound of the window.
+     * @return The best move, its score and the line both players play after it.
+     */
+    private SearchResult solveWindow(int alpha, int beta) {
+        int player = baseGame.getCurrentPlayer().getId();
+        long discs = baseGame.getDiscs(player);
+        long opponentDiscs = baseGame.getDiscs(player % 2 + 1);
+        int empties = Long.bitCount(~(discs | opponentDiscs));
+
+        // Every score is a bound on the exact score, so entries of earlier windows stay valid.
+        transpositionTable.newSearch();
+        int move = solveRoot(discs, opponentDiscs, alpha, beta, 2 * empties);
+
+        return new SearchResult(move, rootScore, empties, principalVariation.get(2 * empties));
+    }
+
+    /**
+     * Searches the moves at the root.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param alpha    The lower bound of the window.
+     * @param beta     The upper bound of the window.
+     * @param depth    The depth of the root in the principal variation.
+     * @return The best move, or -1 if the player has no moves.
+     */
+    private int solveRoot(long player, long opponent, int alpha, int beta, int depth) {
+        principalVariation.clear(depth);
+        rootScore = Integer.MIN_VALUE;
+
+        MoveList moves = moveLists[CELLS];
+        orderMoves(player, opponent, BitBoard.getMoves(player, opponent), moves, -1,
+            orderScores[CELLS]);
+
+        int bestMove = -1;
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long flips = BitBoard.getFlips(player, opponent, move);
+            int score;
+            try {
+                score = searchMove(opponent ^ flips, player | flips | 1L << move, alpha, beta,
+                    depth, i == 0);
+            } catch (SearchAbortedException e) {
+                return -1;
+            }
+
+            if (score > rootScore) {
+                rootScore = score;
+                bestMove = move;
+                principalVariation.update(depth, move);
+            }
+
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * The search in negamax form: every score is the final disc difference from the perspective
+     * of the player to move.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param alpha    The lowest score the player to move is already assured of.
+     * @param beta     The highest score the opponent allows the player to move.
+     * @param depth    The depth of the node in the principal variation.
+     * @param passed   Whether the opponent passed the move before this one.
+     * @return The score of the position for the player to move.
+     */
+    private int solve(long player, long opponent, int alpha, int beta, int depth,
+                      boolean passed) {
+        principalVariation.clear(depth);
+        context.poll();
+
+        long empty = ~(player | opponent);
+        int empties = Long.bitCount(empty);
+        if (empties == 0) {
+            return getFinalScore(player, opponent);
+        }
+
+        if (empties == 1) {
+            return solveLastEmpty(player, opponent, Long.numberOfTrailingZeros(empty));
+        }
+
+        if (empties >= STABILITY_EMPTIES) {
+            int bound = getStabilityCutoff(player, opponent, alpha, beta);
+            if (bound != NO_CUTOFF) {
+                return bound;
+            }
+        }
+
+        if (empties <= SORT_EMPTIES) {
+            return solveByParity(player, opponent, empty, alpha, beta, depth, passed);
+        }
+
+        return solveSorted(player, opponent, empties, alpha, beta, depth, passed);
+    }
+
+    /**
+     * Searches a position with enough empties that sorting the moves pays off. Positions are
+     * looked up in the transposition table, and the moves are searched fastest-first.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param empties  The amount of empty cells.
+     * @param alpha    The lowest score the player to move is already assured of.
+     * @param beta     The highest score the opponent allows the player to move.
+     * @param depth    The depth of the node in the principal variation.
+     * @param passed   Whether the opponent passed the move before this one.
+     * @return The score of the position for the player to move.
+     */
+    private int solveSorted(long player, long opponent, int empties, int alpha, int beta,
+                            int depth, boolean passed) {
+        long moveMask = BitBoard.getMoves(player, opponent);
+        if (moveMask == 0) {
+            return pass(player, opponent, alpha, beta, depth, passed);
+        }
+
+        boolean useTable = empties >= TABLE_EMPTIES;
+        long ttKey = useTable ? getKey(player, opponent) : 0;
+        TranspositionEntry ttEntry = useTable ? transpositionTable.get(ttKey) : null;
+
+        if (ttEntry != null) {
+            int value = (int) ttEntry.value();
+            switch (ttEntry.flag()) {
+                case EXACT -> {
+                    return value;
+                }
+                case LOWER_BOUND -> alpha = Math.max(alpha, value);
+                case UPPER_BOUND -> beta = Math.min(beta, value);
+                default -> throw new IllegalStateException("Invalid flag");
+            }
+
+            if (beta <= alpha) {
+                return value;
+            }
+        }
+
+        MoveList moves = moveLists[empties];
+        orderMoves(player, opponent, moveMask, moves, ttEntry == null ? -1 : ttEntry.move(),
+            orderScores[empties]);
+
+        int originalAlpha = alpha;
+        int maxScore = Integer.MIN_VALUE;
+        int bestMove = -1;
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            long flips = BitBoard.getFlips(player, opponent, move);
+            int score = searchMove(opponent ^ flips, player | flips | 1L << move, alpha, beta,
+                depth, i == 0);
+
+            if (score > maxScore) {
+                maxScore = score;
+                bestMove = move;
+            }
+
+            if (score > alpha) {
+                alpha = score;
+                principalVariation.update(depth, move);
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+
+        if (useTable) {
+            TranspositionEntry.Flags ttFlag = TranspositionEntry.Flags.EXACT;
+            if (maxScore <= originalAlpha) {
+                ttFlag = TranspositionEntry.Flags.UPPER_BOUND;
+            } else if (maxScore >= beta) {
+                ttFlag = TranspositionEntry.Flags.LOWER_BOUND;
+            }
+
+            transpositionTable.put(ttKey, new TranspositionEntry(maxScore, empties, ttFlag,
+                bestMove));
+        }
+
+        return maxScore;
+    }
+
+    /**
+     * Searches the position after a move the way principal variation search does. The first
+     * move gets the full window, the other moves a null window that only proves they are not
+     * better, and only a move that turns out to be better is searched again with the full window.
+     *
+     * @param player   The discs of the player to move after the move.
+     * @param opponent The discs of the player that made the move.
+     * @param alpha    The lowest score the player that made the move is already assured of.
+     * @param beta     The highest score the opponent allows the player that made the move.
+     * @param depth    The depth of the node the move was made in.
+     * @param first    Whether it is the first move of the node.
+     * @return The score of the move for the player that made it.
+     */
+    private int searchMove(long player, long opponent, int alpha, int beta, int depth,
+                           boolean first) {
+        if (first) {
+            return -solve(player, opponent, -beta, -alpha, depth - 1, false);
+        }
+
+        int score = -solve(player, opponent, -alpha - 1, -alpha, depth - 1, false);
+        if (score > alpha && score < beta) {
+            score = -solve(player, opponent, -beta, -score, depth - 1, false);
+        }
+
+        return score;
+    }
+
+    /**
+     * Searches a position with only a few empties. Generating and sorting moves costs more than
+     * it saves here, so every empty cell is simply tried. Empties in a quadrant with an odd amount
+     * of empties go first: playing there tends to leave the last move in that region to the
+     * player.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param empty    The empty cells.
+     * @param alpha    The lowest score the player to move is already assured of.
+     * @param beta     The highest score the opponent allows the player to move.
+     * @param depth    The depth of the node in the principal variation.
+     * @param passed   Whether the opponent passed the move before this one.
+     * @return The score of the position for the player to move.
+     */
+    private int solveByParity(long player, long opponent, long empty, int alpha, int beta,
+                              int depth, boolean passed) {
+        long odd = 0;
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+                odd |= quadrant;
+            }
+        }
+
+        int maxScore = Integer.MIN_VALUE;
+        for (int round = 0; round < 2; round++) {
+            long cells = round == 0 ? empty & odd : empty & ~odd;
+            for (; cells != 0; cells &= cells - 1) {
+                int move = Long.numberOfTrailingZeros(cells);
+                long flips = BitBoard.getFlips(player, opponent, move);
+                if (flips == 0) {
+                    continue;
+                }
+
+                int score = -solve(opponent ^ flips, player | flips | 1L << move, -beta, -alpha,
+                    depth - 1, false);
+
+                maxScore = Math.max(maxScore, score);
+                if (score > alpha) {
+                    alpha = score;
+                    principalVariation.update(depth, move);
+                    if (alpha >= beta) {
+                        return maxScore;
+                    }
+                }
+            }
+        }
+
+        if (maxScore == Integer.MIN_VALUE) {
+            return pass(player, opponent, alpha, beta, depth, passed);
+        }
+
+        return maxScore;
+    }
+
+    /**
+     * Scores the last empty cell without a search: either player fills it, or nobody can.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param move     The last empty cell.
+     * @return The final score for the player to move.
+     */
+    private int solveLastEmpty(long player, long opponent, int move) {
+        int score = Long.bitCount(player) - Long.bitCount(opponent);
+
+        int flips = Long.bitCount(BitBoard.getFlips(player, opponent, move));
+        if (flips != 0) {
+            return score + 1 + 2 * flips;
+        }
+
+        flips = Long.bitCount(BitBoard.getFlips(opponent, player, move));
+        if (flips != 0) {
+            return score - 1 - 2 * flips;
+        }
+
+        return score;
+    }
+
+    /**
+     * Passes the move to the opponent, or ends the game when the opponent just passed as well.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param alpha    The lowest score the player to move is already assured of.
+     * @param beta     The highest score the opponent allows the player to move.
+     * @param depth    The depth of the node in the principal variation.
+     * @param passed   Whether the opponent passed the move before this one.
+     * @return The score of the position for the player to move.
+     */
+    private int pass(long player, long opponent, int alpha, int beta, int depth,
+                     boolean passed) {
+        if (passed) {
+            return getFinalScore(player, opponent);
+        }
+
+        int score = -solve(opponent, player, -beta, -alpha, depth - 1, true);
+        principalVariation.update(depth, -1);
+        return score;
+    }
+
+    /**
+     * Stable discs never change color, which bounds the final score. The opponent keeps at
+     * least its stable discs, so the player can get no more than the rest of the board, and the
+     * other way around. When a bound already falls outside the window the node needs no search.
+     * Stable discs are only looked for when the amount of discs makes a cutoff possible.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param alpha    The lowest score the player to move is already assured of.
+     * @param beta     The highest score the opponent allows the player to move.
+     * @return The bound that falls outside the window, or NO_CUTOFF.
+     */
+    private static int getStabilityCutoff(long player, long opponent, int alpha, int beta) {
+        if (alpha >= CELLS - 2 * Long.bitCount(opponent)) {
+            int upperBound = CELLS - 2 * Long.bitCount(BitBoard.getStableDiscs(opponent, player));
+            if (upperBound <= alpha) {
+                return upperBound;
+            }
+        }
+
+        if (beta <= 2 * Long.bitCount(player) - CELLS) {
+            int lowerBound = 2 * Long.bitCount(BitBoard.getStableDiscs(player, opponent)) - CELLS;
+            if (lowerBound >= beta) {
+                return lowerBound;
+            }
+        }
+
+        return NO_CUTOFF;
+    }
+
+    /**
+     * Sorts the moves fastest-first: the move after which the opponent has the fewest moves goes
+     * first. The best move from the transposition table goes before all of them.
+     *
+     * @param player    The discs of the player to move.
+     * @param opponent  The discs of the opponent.
+     * @param moveMask  The moves of the player.
+     * @param moves     The list to fill with the sorted moves.
+     * @param tableMove The best move from the transposition table, or -1.
+     * @param scores    The array to keep the scores of the moves in while sorting.
+     */
+    private static void orderMoves(long player, long opponent, long moveMask, MoveList moves,
+                                   int tableMove, int[] scores) {
+        moves.clear();
+        for (; moveMask != 0; moveMask &= moveMask - 1) {
+            int move = Long.numberOfTrailingZeros(moveMask);
+            int score = Integer.MIN_VALUE;
+            if (move != tableMove) {
+                long flips = BitBoard.getFlips(player, opponent, move);
+                score = Long.bitCount(
+                    BitBoard.getMoves(opponent ^ flips, player | flips | 1L << move));
+            }
+
+            // Insertion sort, lowest score first.
+            moves.add(move);
+            int j = moves.size() - 1;
+            while (j > 0 && scores[j - 1] > score) {
+                scores[j] = scores[j - 1];
+                moves.swap(j, j - 1);
+                j--;
+            }
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Returns the final score of a finished game. Empty cells are left out, the game is won by
+     * the player with the most discs.
+     *
+     * @param player   The discs of the player.
+     * @param opponent The discs of the opponent.
+     * @return The difference in discs for the player.
+     */
+    private static int getFinalScore(long player, long opponent) {
+        return Long.bitCount(player) - Long.bitCount(opponent);
+    }
+
+    /**
+     * Returns the key of a position in the transposition table.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @return The key of the position.
+     */
+    private static long getKey(long player, long opponent) {
+        long key = player * 0x9e3779b97f4a7c15L
+            ^ Long.rotateLeft(opponent, 32) * 0xc2b2ae3d27d4eb4fL;
+        return key ^ key >>> 31;
+    }
+}
@@ -0,0 +1,163 @@
+package com.headtrixz.algorithms;
+
+/**
+ * Searches one depth deeper at a time, until the search is aborted or the budget decides the next
+ * depth is not worth starting. The result of the last depth that was searched completely is kept.
+ *
+ * <p>The root can also be searched with aspiration windows: every depth is searched with a window
+ * around the score of the previous depth. When the score falls outside the window, the failing
+ * side is widened and the depth is searched again.
+ */
+public class IterativeDeepening {
+    // The aspiration window around the previous score, and how much it grows after a failure.
+    private static final float DEFAULT_ASPIRATION_WINDOW = 0.5f;
+    private static final float WINDOW_GROWTH = 4;
+
+    /**
+     * Searches a single depth.
+     */
+    @FunctionalInterface
+    public interface Depth {
+        /**
+         * Searches the root to the given depth.
+         *
+         * @param depth    The depth to search to.
+         * @param previous The result of the previous depth.
+         * @return The result to keep, the previous result if the depth did not find a better one.
+         */
+        SearchResult search(int depth, SearchResult previous);
+    }
+
+    /**
+     * Searches all root moves with a window.
+     */
+    @FunctionalInterface
+    public interface Root {
+        /**
+         * Searches the root moves to the given depth with the given window.
+         *
+         * @param depth The depth to search to.
+         * @param alpha The lower bound of the window.
+         * @param beta  The upper bound of the window.
+         * @return The best move that was searched completely, or -1 if there is none. Its score is
+         *     only a bound when it falls outside the window.
+         */
+        SearchResult search(int depth, float alpha, float beta);
+    }
+
+    private final SearchContext context;
+    private float aspirationWindow = DEFAULT_ASPIRATION_WINDOW;
+
+    /**
+     * Creates a driver for the search of the given context.
+     *
+     * @param context The context that tells whether the search was aborted.
+     */
+    public IterativeDeepening(SearchContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Searches every depth up to the max depth, after every depth the budget decides whether the
+     * next depth is worth starting.
+     *
+     * @param budget   The time the move may take.
+     * @param maxDepth The deepest depth to search.
+     * @param first    The result to return when not even the first depth is finished.
+     * @param depth    Searches a single depth.
+     * @return The result of the search.
+     */
+    public SearchResult search(TimeBudget budget, int maxDepth, SearchResult first, Depth depth) {
+        SearchResult result = first;
+        for (int d = 1; d <= maxDepth; d++) {
+            result = depth.search(d, result);
+            if (context.isAborted() || budget.shouldStop(result.move(), result.score())) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Searches the same way as search, but searches every depth with an aspiration window. The
+     * root moves are sorted after every depth, so the next depth starts with the best move.
+     *
+     * @param budget    The time the move may take.
+     * @param maxDepth  The deepest depth to search.
+     * @param rootMoves The moves at the root.
+     * @param root      Searches all root moves with a window.
+     * @return The result of the search.
+     */
+    public SearchResult searchWithAspiration(TimeBudget budget, int maxDepth, RootMoves rootMoves,
+            Root root) {
+        SearchResult first = new SearchResult(-1, 0, 0, new int[0]);
+        SearchResult result = search(budget, maxDepth, first, (depth, previous) -> {
+            SearchResult next = searchWindows(depth, previous, root);
+            if (!context.isAborted()) {
+                rootMoves.sort();
+            }
+            return next;
+        });
+
+        // Not even the first move of the first depth was finished, any move is better than none.
+        if (result.move() == -1 && rootMoves.size() > 0) {
+            int move = rootMoves.get(0);
+            return new SearchResult(move, Float.NaN, 0, new int[] {move});
+        }
+
+        return result;
+    }
+
+    /**
+     * Sets the width of the aspiration window: how far the score of a depth may be from the score
+     * of the previous depth before that depth is searched again with a wider window.
+     *
+     * @param aspirationWindow The distance from the previous score to either side of the window.
+     */
+    public void setAspirationWindow(float aspirationWindow) {
+        this.aspirationWindow = aspirationWindow;
+    }
+
+    /**
+     * Searches a single depth with a window around the previous score, widening it until the
+     * score falls inside.
+     *
+     * @param depth    The depth to search to.
+     * @param previous The result of the previous depth.
+     * @param root     Searches all root moves with a window.
+     * @return The result to keep.
+     */
+    private SearchResult searchWindows(int depth, SearchResult previous, Root root) {
+        float score = previous.score();
+        float alpha = depth == 1 ? Integer.MIN_VALUE : score - aspirationWindow;
+        float beta = depth == 1 ? Integer.MAX_VALUE : score + aspirationWindow;
+
+        SearchResult result = root.search(depth, alpha, beta);
+        while (!context.isAborted() && (result.score() <= alpha && alpha > Integer.MIN_VALUE
+                || result.score() >= beta && beta < Integer.MAX_VALUE)) {
+            // Widen the side that failed once, open it completely when it fails again.
+            if (result.score() <= alpha) {
+                alpha = alpha < score - aspirationWindow
+                        ? Integer.MIN_VALUE
+                        : score - aspirationWindow * WINDOW_GROWTH;
+            } else {
+                beta = beta > score + aspirationWindow
+                        ? Integer.MAX_VALUE
+                        : score + aspirationWindow * WINDOW_GROWTH;
+            }
+
+            result = root.search(depth, alpha, beta);
+        }
+
+        // A move of an unfinished depth is only better when it was searched completely and beat
+        // the window. The previous best is searched first, so it has to beat that move.
+        if (context.isAborted()) {
+            return result.move() != -1 && result.score() > alpha
+                    ? new SearchResult(result.move(), result.score(), previous.depth(), result.pv())
+                    : previous;
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.Othello;
+
+/**
+ * The reductions of late move reductions. With good move ordering the best move is almost always
+ * one of the first moves of a node, so the moves after them are searched less deep. A reduced move
+ * that turns out to be better after all is searched again at the full depth. The reduction grows
+ * with the depth that is left and with how late the move comes in the list.
+ */
+public class LateMoveReductions {
+    private final int[][] reductions;
+    private final boolean[] tacticalMoves;
+
+    /**
+     * Creates the reductions for a board. A move is reduced by
+     * {@code base + ln(depth) * ln(move number) / divisor} plies, rounded down.
+     *
+     * @param cellCount     The number of cells on the board.
+     * @param minDepth      The lowest depth at which moves are reduced.
+     * @param minMoveNumber The first move of a node to be reduced, counting from 1.
+     * @param base          The reduction every reduced move gets.
+     * @param divisor       How slowly the reduction grows, higher reduces less.
+     * @param tacticalMoves The cells that are never reduced, because they change the game too
+     *                      much to be judged at a lower depth.
+     */
+    public LateMoveReductions(int cellCount, int minDepth, int minMoveNumber, float base,
+                              float divisor, int... tacticalMoves) {
+        this.reductions = new int[cellCount + 1][cellCount + 1];
+        for (int depth = minDepth; depth <= cellCount; depth++) {
+            for (int number = minMoveNumber; number <= cellCount; number++) {
+                int reduction = (int) (base + Math.log(depth) * Math.log(number) / divisor);
+
+                // Always leave at least one ply, the reduced search has to make the move.
+                reductions[depth][number] = Math.max(0, Math.min(reduction, depth - 2));
+            }
+        }
+
+        this.tacticalMoves = new boolean[cellCount];
+        for (int move : tacticalMoves) {
+            this.tacticalMoves[move] = true;
+        }
+    }
+
+    /**
+     * Returns the reductions for a game. Othello never reduces the corners, which are the most
+     * important moves of the game. Tic Tac Toe is so small that it is not reduced at all.
+     *
+     * @param game The game to get the reductions for.
+     * @return The reductions for the game.
+     */
+    public static LateMoveReductions forGame(GameModel game) {
+        int cellCount = game.getBoard().getCellCount();
+        if (game instanceof Othello) {
+            return new LateMoveReductions(cellCount, 3, 4, 0.5f, 2.5f, 0, 7, 56, 63);
+        }
+
+        return none(cellCount);
+    }
+
+    /**
+     * Returns reductions that never reduce anything.
+     *
+     * @param cellCount The number of cells on the board.
+     * @return The reductions.
+     */
+    public static LateMoveReductions none(int cellCount) {
+        return new LateMoveReductions(cellCount, cellCount + 1, cellCount + 1, 0, 1);
+    }
+
+    /**
+     * Returns how many plies less a move is searched.
+     *
+     * @param depth  The depth that is left in the node.
+     * @param index  The index of the move in the ordered list of moves, starting at 0.
+     * @param move   The move.
+     * @return The reduction, 0 if the move is searched at the full depth.
+     */
+    public int getReduction(int depth, int index, int move) {
+        if (tacticalMoves[move]) {
+            return 0;
+        }
+
+        return reductions[Math.min(depth, reductions.length - 1)][index + 1];
+    }
+}
@@ -27,4 +27,44 @@ public interface MiniMax {
      * @return The best move of the board.
      */
     int iterativeDeepening(int timeout);
+
+    /**
+     * Stops the running search, which can be called from another thread. The search returns as
+     * soon as it can, with the best move it has finished so far. Engines that answer at once have
+     * nothing to stop.
+     */
+    default void stop() {
+    }
+
+    /**
+     * Clears a stop, so the next search runs again. A stop is kept until then, also when it
+     * arrives before the search it was meant for has started.
+     */
+    default void reset() {
+    }
+
+    /**
+     * Searches the same way as iterativeDeepening, but also returns the score, the depth and the
+     * principal variation. Engines that do not track a principal variation return a line of only
+     * the best move, without a score.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The result of the search.
+     */
+    default SearchResult search(int timeout) {
+        int move = iterativeDeepening(timeout);
+        return new SearchResult(move, Float.NaN, 0, move == -1 ? new int[0] : new int[] {move});
+    }
+
+    /**
+     * Searches the same way as search, within a budget instead of a timeout. Engines that search
+     * depth by depth ask the budget after every depth whether to go on, the others search until
+     * the target of the budget.
+     *
+     * @param budget The time the move may take.
+     * @return The result of the search.
+     */
+    default SearchResult search(TimeBudget budget) {
+        return search(budget.getTargetTimeLeft());
+    }
 }
@@ -1,16 +1,22 @@
 package com.headtrixz.algorithms;
 
 import com.headtrixz.game.GameModel;
+import com.headtrixz.game.GameModelPool;
+import com.headtrixz.game.MoveList;
 import com.headtrixz.game.players.Player;
-import java.util.List;
 
 /**
  * Represents the MiniMax algorithm with Alpha-beta pruning.
  */
 public class MiniMaxAlphaBeta implements MiniMax {
     private final GameModel baseGame;
-    private Long endTime;
-    private boolean hasTimedOut = false;
+    private final RootMoves rootMoves;
+    private final MoveList[] moveLists;
+    private final MoveOrdering moveOrdering;
+    private final PrincipalVariation principalVariation;
+    private float rootScore;
+    private final SearchContext context = new SearchContext();
+    private final IterativeDeepening deepening = new IterativeDeepening(context);
 
     /**
      * Represents the MiniMax algorithm with Alpha-beta pruning.
@@ -19,6 +25,16 @@ public class MiniMaxAlphaBeta implements MiniMax {
      */
     public MiniMaxAlphaBeta(GameModel game) {
         this.baseGame = game;
+
+        // One move list per depth, so generating moves does not allocate.
+        int cellCount = game.getBoard().getCellCount();
+        this.rootMoves = new RootMoves(cellCount);
+        this.moveLists = new MoveList[cellCount + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList(cellCount);
+        }
+        this.moveOrdering = new MoveOrdering(cellCount);
+        this.principalVariation = new PrincipalVariation(cellCount + 1);
     }
 
     /**
@@ -37,66 +53,143 @@ public class MiniMaxAlphaBeta implements MiniMax {
     @Override
     public int getMove(int maxDepth) {
         Player maxPlayer = baseGame.getCurrentPlayer();
-        Player minPlayer = baseGame.getOpponent();
-
-        int bestMove = -1;
-        float value = Integer.MIN_VALUE;
 
-        for (int move : baseGame.getValidMoves(maxPlayer.getId())) {
-            GameModel clone = baseGame.clone();
-            clone.setMove(move, maxPlayer.getId());
+        context.start();
+        moveOrdering.newSearch();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+        maxDepth = Math.min(maxDepth, moveLists.length - 1);
 
-            float score = minimax(clone, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, minPlayer);
-            if (score > value || bestMove == -1) {
-                value = score;
-                bestMove = move;
-            }
-        }
+        int bestMove = searchRoot(game, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE);
 
+        GameModelPool.release(game);
         return bestMove;
     }
 
     /**
-     * Returns the best move the current player can play based on the current game state.
+     * Returns the best move the current player can play based on the current game state. Every
+     * depth is searched with a window around the score of the previous depth. When the score falls
+     * outside the window, the failing side is widened and the depth is searched again.
      *
      * @param timeout The maximum amount of time in milliseconds to spend searching.
      * @return The best move of the board.
      */
+    @Override
     public int iterativeDeepening(int timeout) {
-        endTime = System.currentTimeMillis() + timeout;
+        return search(timeout).move();
+    }
+
+    /**
+     * Searches the same way as iterativeDeepening, but also returns the score, the depth and the
+     * principal variation of the best move.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(int timeout) {
+        return search(TimeBudget.fixed(timeout));
+    }
+
+    /**
+     * Searches the same way as search, but after every depth the budget decides whether the next
+     * depth is worth starting.
+     *
+     * @param budget The time the move may take.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(TimeBudget budget) {
+        context.start(budget.getTimeLeft());
 
         Player maxPlayer = baseGame.getCurrentPlayer();
-        Player minPlayer = baseGame.getOpponent();
 
-        int bestMove = -1;
-        List<Integer> moves = baseGame.getValidMoves(maxPlayer.getId());
+        moveOrdering.newSearch();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+
+        int maxDepth = baseGame.getBoard().getCellCount() - 1;
+        SearchResult result = deepening.searchWithAspiration(budget, maxDepth, rootMoves,
+            (depth, alpha, beta) -> {
+                int move = searchRoot(game, depth, alpha, beta);
+                return new SearchResult(move, rootScore, depth, principalVariation.get(depth + 1));
+            });
+
+        GameModelPool.release(game);
+        return result;
+    }
+
+    /**
+     * Stops the running search, it returns the best move it has finished so far.
+     */
+    @Override
+    public void stop() {
+        context.stop();
+    }
 
-        outer: for (int d = 1; d < baseGame.getBoard().getCellCount(); d++) {
-            int tempMove = -1;
-            float maxScore = Integer.MIN_VALUE;
+    /**
+     * Clears a stop, so the next search runs again.
+     */
+    @Override
+    public void reset() {
+        context.reset();
+    }
 
-            for (int move : moves) {
-                if (System.currentTimeMillis() >= endTime) {
-                    break outer;
-                }
+    /**
+     * Sets the width of the aspiration window: how far the score of a depth may be from the score
+     * of the previous depth before that depth is searched again with a wider window.
+     *
+     * @param aspirationWindow The distance from the previous score to either side of the window.
+     */
+    public void setAspirationWindow(float aspirationWindow) {
+        deepening.setAspirationWindow(aspirationWindow);
+    }
 
-                GameModel clone = baseGame.clone();
-                clone.setMove(move, maxPlayer.getId());
+    /**
+     * Searches all root moves with the given window, in the order of the previous depth. The
+     * score of the best move is left in rootScore, it is only a bound when it falls outside the
+     * window.
+     *
+     * @param game  The game to search in.
+     * @param depth The depth to search to.
+     * @param alpha The lower bound of the window.
+     * @param beta  The upper bound of the window.
+     * @return The best move that was searched completely, or -1 if there is none.
+     */
+    private int searchRoot(GameModel game, int depth, float alpha, float beta) {
+        Player maxPlayer = baseGame.getCurrentPlayer();
+        Player minPlayer = baseGame.getOpponent(maxPlayer);
 
-                float score = minimax(clone, d, Integer.MIN_VALUE, Integer.MAX_VALUE, minPlayer);
-                if (score > maxScore) {
-                    maxScore = score;
-                    tempMove = move;
-                }
+        int bestMove = -1;
+        rootScore = Integer.MIN_VALUE;
+        rootMoves.resetScores();
+        principalVariation.clear(depth + 1);
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            game.makeMove(move, maxPlayer.getId());
+            float score;
+            try {
+                score = minimax(game, depth, alpha, beta, minPlayer);
+            } catch (SearchAbortedException e) {
+                // The moves below the root were never taken back.
+                game.copyFrom(baseGame);
+                break;
             }
+            game.undoMove();
 
-            if (!hasTimedOut || bestMove == -1) {
-                bestMove = tempMove;
+            rootMoves.setScore(i, score);
+            if (score > rootScore || bestMove == -1) {
+                rootScore = score;
+                bestMove = move;
+                principalVariation.update(depth + 1, move);
             }
-        }
 
-        endTime = null;
-        hasTimedOut = false;
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
 
         return bestMove;
     }
@@ -114,28 +207,38 @@ public class MiniMaxAlphaBeta implements MiniMax {
      * @return The best (or worst) value of any board.
      */
     private float minimax(GameModel game, int depth, float alpha, float beta, Player player) {
-        if (endTime != null && System.currentTimeMillis() >= endTime) {
-            hasTimedOut = true;
-            return Integer.MIN_VALUE;
-        }
+        principalVariation.clear(depth);
+        context.poll();
 
         Player maxPlayer = baseGame.getCurrentPlayer();
 
-        List<Integer> moves = game.getValidMoves(player.getId());
-        if (depth == 0 || moves.size() == 0 || game.getState() != GameModel.GameState.PLAYING) {
+        if (depth == 0 || game.getCertainResult() != GameModel.GameState.PLAYING) {
+            return game.getScore(maxPlayer, depth);
+        }
+
+        MoveList moves = moveLists[depth];
+        game.getValidMoves(player.getId(), moves);
+        if (moves.isEmpty()) {
             return game.getScore(maxPlayer, depth);
         }
 
+        moveOrdering.order(game.getBoard(), moves, player.getId(), -1);
+
         float maxScore = player == maxPlayer
                 ? Integer.MIN_VALUE
                 : Integer.MAX_VALUE;
 
         Player opponent = game.getOpponent(player);
-        for (int move : moves) {
-            GameModel clone = game.clone();
-            clone.setMove(move, player.getId());
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            game.makeMove(move, player.getId());
+            float score = minimax(game, depth - 1, alpha, beta, opponent);
+            game.undoMove();
+
+            if (player == maxPlayer ? score > alpha : score < beta) {
+                principalVariation.update(depth, move);
+            }
 
-            float score = minimax(clone, depth - 1, alpha, beta, opponent);
             if (player == maxPlayer) {
                 maxScore = Math.max(maxScore, score);
                 alpha = Math.max(alpha, maxScore);
@@ -145,6 +248,7 @@ public class MiniMaxAlphaBeta implements MiniMax {
             }
 
             if (beta <= alpha) {
+                moveOrdering.recordCutoff(game.getBoard(), move, player.getId(), depth);
                 break;
             }
         }
@@ -0,0 +1,330 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.GameModelPool;
+import com.headtrixz.game.MoveList;
+import com.headtrixz.game.players.Player;
+
+/**
+ * Represents MTD(f): the value of the position is found with a series of null window alpha-beta
+ * searches. Every search tells whether the value is above or below a guess, and the guess moves
+ * towards the value until the bounds meet. The searches revisit the same positions, so they
+ * depend on the transposition table to be fast.
+ */
+public class MiniMaxMtdf implements MiniMax {
+    private static final int TABLE_BITS = 20;
+
+    private final GameModel baseGame;
+    private final RootMoves rootMoves;
+    private final MoveList[] moveLists;
+    private final MoveOrdering moveOrdering;
+    private final TranspositionTable transpositionTable;
+    private Player maxPlayer;
+    private int rootBestMove;
+    private final SearchContext context = new SearchContext();
+    private final IterativeDeepening deepening = new IterativeDeepening(context);
+
+    /**
+     * Represents MTD(f) with a bounded transposition table.
+     *
+     * @param game The game the AI is currently playing in.
+     */
+    public MiniMaxMtdf(GameModel game) {
+        this.baseGame = game;
+        this.transpositionTable = new TranspositionTable(TABLE_BITS);
+
+        // One move list per depth, so generating moves does not allocate.
+        int cellCount = game.getBoard().getCellCount();
+        this.rootMoves = new RootMoves(cellCount);
+        this.moveLists = new MoveList[cellCount + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList(cellCount);
+        }
+        this.moveOrdering = new MoveOrdering(cellCount);
+    }
+
+    /**
+     * Returns the best move the current player can play based on the current game state.
+     */
+    @Override
+    public int getMove() {
+        return getMove(baseGame.getBoard().getCellCount());
+    }
+
+    /**
+     * Returns the best move the current player can play based on the current game state.
+     *
+     * @param maxDepth The max depth the algorithm should search.
+     */
+    @Override
+    public int getMove(int maxDepth) {
+        maxPlayer = baseGame.getCurrentPlayer();
+        moveOrdering.newSearch();
+        transpositionTable.newSearch();
+
+        context.start();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+
+        mtdf(game, Math.min(maxDepth, moveLists.length - 1), 0);
+
+        GameModelPool.release(game);
+        return rootBestMove;
+    }
+
+    /**
+     * Returns the best move the current player can play based on the current game state. Every
+     * depth starts with the value of the previous depth as its guess.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The best move of the board.
+     */
+    @Override
+    public int iterativeDeepening(int timeout) {
+        return search(timeout).move();
+    }
+
+    /**
+     * Searches the same way as iterativeDeepening, but also returns the score, the depth and the
+     * principal variation. Null window searches do not build a principal variation, so it is read
+     * from the best moves in the transposition table.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(int timeout) {
+        return search(TimeBudget.fixed(timeout));
+    }
+
+    /**
+     * Searches the same way as search, but after every depth the budget decides whether the next
+     * depth is worth starting.
+     *
+     * @param budget The time the move may take.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(TimeBudget budget) {
+        context.start(budget.getTimeLeft());
+        maxPlayer = baseGame.getCurrentPlayer();
+        moveOrdering.newSearch();
+        transpositionTable.newSearch();
+
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+        int firstMove = rootMoves.size() > 0 ? rootMoves.get(0) : -1;
+        SearchResult first = new SearchResult(firstMove, Float.NaN, 0,
+            firstMove == -1 ? new int[0] : new int[] {firstMove});
+
+        int maxDepth = baseGame.getBoard().getCellCount() - 1;
+        SearchResult result = deepening.search(budget, maxDepth, first,
+            (depth, previous) -> {
+                float guess = previous.score();
+                float value = mtdf(game, depth, Float.isNaN(guess) ? 0 : guess);
+                if (context.isAborted()) {
+                    return previous;
+                }
+
+                return new SearchResult(rootBestMove, value, depth, PrincipalVariation.extend(game,
+                    maxPlayer, new int[] {rootBestMove}, depth, moveLists[0], this::getTableMove));
+            });
+
+        GameModelPool.release(game);
+        return result;
+    }
+
+    /**
+     * Stops the running search, it returns the best move it has finished so far.
+     */
+    @Override
+    public void stop() {
+        context.stop();
+    }
+
+    /**
+     * Clears a stop, so the next search runs again.
+     */
+    @Override
+    public void reset() {
+        context.reset();
+    }
+
+    /**
+     * Narrows the value of the position down with null window searches, starting at the guess.
+     * The best root move is left in rootBestMove.
+     *
+     * @param game  The game to search in.
+     * @param depth The depth to search to.
+     * @param guess The first guess of the value.
+     * @return The value of the position for the player at the root.
+     */
+    private float mtdf(GameModel game, int depth, float guess) {
+        float value = guess;
+        float lowerBound = Integer.MIN_VALUE;
+        float upperBound = Integer.MAX_VALUE;
+        rootBestMove = rootMoves.size() > 0 ? rootMoves.get(0) : -1;
+
+        while (lowerBound < upperBound && !context.isAborted()) {
+            float beta = value == lowerBound ? Math.nextUp(value) : value;
+            value = searchRoot(game, depth, Math.nextDown(beta), beta);
+
+            if (value < beta) {
+                upperBound = value;
+            } else {
+                lowerBound = value;
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Searches the root moves with the given window. A move that fails high is the best move so
+     * far, its value is at least as high as any earlier guess. It moves to the front, so the next
+     * search and the next depth try it first.
+     *
+     * @param game  The game to search in.
+     * @param depth The depth to search to.
+     * @param alpha The lower bound of the window.
+     * @param beta  The upper bound of the window.
+     * @return The value of the position, or a bound on it if it falls outside the window.
+     */
+    private float searchRoot(GameModel game, int depth, float alpha, float beta) {
+        Player opponent = game.getOpponent(maxPlayer);
+        float maxScore = Integer.MIN_VALUE;
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            game.makeMove(move, maxPlayer.getId());
+            float score;
+            try {
+                score = -alphaBeta(game, depth - 1, -beta, -alpha, opponent);
+            } catch (SearchAbortedException e) {
+                // The moves below the root were never taken back.
+                game.copyFrom(baseGame);
+                return 0;
+            }
+            game.undoMove();
+
+            maxScore = Math.max(maxScore, score);
+            if (score >= beta) {
+                rootBestMove = move;
+                rootMoves.moveToFront(i);
+                break;
+            }
+        }
+
+        return maxScore;
+    }
+
+    /**
+     * Returns the best move the transposition table holds for the position.
+     *
+     * @param game   Current game state.
+     * @param player The player to move.
+     * @return The best move, or -1 if there is none.
+     */
+    private int getTableMove(GameModel game, Player player) {
+        TranspositionEntry entry =
+            transpositionTable.get(TranspositionEntry.createHash(game.getBoard(), player));
+        return entry == null ? -1 : entry.move();
+    }
+
+    /**
+     * Returns the score of the game for the player to move. The games score everything from the
+     * perspective of the player at the root, so the score is negated for the opponent.
+     *
+     * @param game   Current game state.
+     * @param depth  The depth that is left.
+     * @param player The player to move.
+     * @return The score for the player to move.
+     */
+    private float evaluate(GameModel game, int depth, Player player) {
+        float score = game.getScore(maxPlayer, depth);
+        return player == maxPlayer ? score : -score;
+    }
+
+    /**
+     * The alpha-beta algorithm in negamax form: every score is from the perspective of the player
+     * to move. It fails soft, so a score outside the window is still the tightest bound it found.
+     *
+     * @param game   Current game state.
+     * @param depth  The max depth the algorithm should search.
+     * @param alpha  The lowest score the player to move is already assured of.
+     * @param beta   The highest score the opponent allows the player to move.
+     * @param player The player to move.
+     * @return The score of the position for the player to move.
+     */
+    private float alphaBeta(GameModel game, int depth, float alpha, float beta, Player player) {
+        context.poll();
+
+        if (depth == 0 || game.getCertainResult() != GameModel.GameState.PLAYING) {
+            return evaluate(game, depth, player);
+        }
+
+        long ttKey = TranspositionEntry.createHash(game.getBoard(), player);
+        TranspositionEntry ttEntry = transpositionTable.get(ttKey);
+
+        if (ttEntry != null && ttEntry.depth() >= depth) {
+            switch (ttEntry.flag()) {
+                case EXACT -> {
+                    return ttEntry.value();
+                }
+                case LOWER_BOUND -> alpha = Math.max(alpha, ttEntry.value());
+                case UPPER_BOUND -> beta = Math.min(beta, ttEntry.value());
+                default -> throw new IllegalStateException("Invalid flag");
+            }
+
+            if (beta <= alpha) {
+                return ttEntry.value();
+            }
+        }
+
+        Player opponent = game.getOpponent(player);
+        MoveList moves = moveLists[depth];
+        game.getValidMoves(player.getId(), moves);
+
+        // The player has to pass, the game is not over yet so the opponent can still move.
+        if (moves.isEmpty()) {
+            return -alphaBeta(game, depth - 1, -beta, -alpha, opponent);
+        }
+
+        // The re-searches of every guess try the best move of the last one first.
+        int tableMove = ttEntry == null ? -1 : ttEntry.move();
+        moveOrdering.order(game.getBoard(), moves, player.getId(), tableMove);
+
+        float originalAlpha = alpha;
+        float maxScore = Integer.MIN_VALUE;
+        int bestMove = -1;
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            game.makeMove(move, player.getId());
+            float score = -alphaBeta(game, depth - 1, -beta, -alpha, opponent);
+            game.undoMove();
+
+            if (score > maxScore || bestMove == -1) {
+                maxScore = score;
+                bestMove = move;
+            }
+
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                moveOrdering.recordCutoff(game.getBoard(), move, player.getId(), depth);
+                break;
+            }
+        }
+
+        TranspositionEntry.Flags ttFlag = TranspositionEntry.Flags.EXACT;
+        if (maxScore <= originalAlpha) {
+            ttFlag = TranspositionEntry.Flags.UPPER_BOUND;
+        } else if (maxScore >= beta) {
+            ttFlag = TranspositionEntry.Flags.LOWER_BOUND;
+        }
+
+        transpositionTable.put(ttKey, new TranspositionEntry(maxScore, depth, ttFlag, bestMove));
+
+        return maxScore;
+    }
+}
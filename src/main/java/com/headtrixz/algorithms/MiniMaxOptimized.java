@@ -1,19 +1,34 @@
 package com.headtrixz.algorithms;
 
+import com.headtrixz.game.GameBoard;
 import com.headtrixz.game.GameModel;
+import com.headtrixz.game.GameModelPool;
+import com.headtrixz.game.MoveList;
+import com.headtrixz.game.Symmetry;
 import com.headtrixz.game.players.Player;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Represents the MiniMax algorithm with Alpha-beta pruning and Transposition Tables.
  */
 public class MiniMaxOptimized implements MiniMax {
+    private static final int TABLE_BITS = 20;
+
+    // Positions with this many stones or less use a hash shared with their rotations and
+    // reflections. Later positions are practically never symmetric to one another.
+    private static final int SYMMETRY_MAX_STONES = 12;
+
+    // Probing the children costs a table lookup per move, near the leaves that is not worth it.
+    private static final int ETC_MIN_DEPTH = 3;
+
     private final GameModel baseGame;
-    private final Map<Integer, TranspositionEntry> transpositionTable;
-    private Long endTime;
-    private boolean hasTimedOut = false;
+    private final RootMoves rootMoves;
+    private final MoveList[] moveLists;
+    private final MoveOrdering moveOrdering;
+    private final PrincipalVariation principalVariation;
+    private final TranspositionTable transpositionTable;
+    private float rootScore;
+    private final SearchContext context = new SearchContext();
+    private final IterativeDeepening deepening = new IterativeDeepening(context);
 
     /**
      * Represents the MiniMax algorithm with Alpha-beta pruning and Transposition Tables.
@@ -22,7 +37,17 @@ public class MiniMaxOptimized implements MiniMax {
      */
     public MiniMaxOptimized(GameModel game) {
         this.baseGame = game;
-        this.transpositionTable = new HashMap<>();
+        this.transpositionTable = new TranspositionTable(TABLE_BITS);
+
+        // One move list per depth, so generating moves does not allocate.
+        int cellCount = game.getBoard().getCellCount();
+        this.rootMoves = new RootMoves(cellCount);
+        this.moveLists = new MoveList[cellCount + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList(cellCount);
+        }
+        this.moveOrdering = new MoveOrdering(cellCount);
+        this.principalVariation = new PrincipalVariation(cellCount + 1);
     }
 
     /**
@@ -41,68 +66,318 @@ public class MiniMaxOptimized implements MiniMax {
     @Override
     public int getMove(int maxDepth) {
         Player maxPlayer = baseGame.getCurrentPlayer();
-        Player minPlayer = baseGame.getOpponent(maxPlayer);
 
-        int bestMove = -1;
-        float value = Integer.MIN_VALUE;
+        context.start();
+        moveOrdering.newSearch();
+        transpositionTable.newSearch();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+        maxDepth = Math.min(maxDepth, moveLists.length - 1);
 
-        for (int move : baseGame.getValidMoves(maxPlayer.getId())) {
-            GameModel clone = baseGame.clone();
-            clone.setMove(move, maxPlayer.getId());
-
-            float score = minimax(clone, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE, minPlayer);
-            if (score > value || bestMove == -1) {
-                value = score;
-                bestMove = move;
-            }
-        }
+        int bestMove = searchRoot(game, maxDepth, Integer.MIN_VALUE, Integer.MAX_VALUE);
 
+        GameModelPool.release(game);
         return bestMove;
     }
 
     /**
-     * Returns the best move the current player can play based on the current game state.
+     * Returns the best move the current player can play based on the current game state. Every
+     * depth is searched with a window around the score of the previous depth. When the score falls
+     * outside the window, the failing side is widened and the depth is searched again.
      *
      * @param timeout The maximum amount of time in milliseconds to spend searching.
      * @return The best move of the board.
      */
+    @Override
     public int iterativeDeepening(int timeout) {
-        endTime = System.currentTimeMillis() + timeout;
+        return search(timeout).move();
+    }
+
+    /**
+     * Searches the same way as iterativeDeepening, but also returns the score, the depth and the
+     * principal variation of the best move.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(int timeout) {
+        return search(TimeBudget.fixed(timeout));
+    }
+
+    /**
+     * Searches the same way as search, but after every depth the budget decides whether the next
+     * depth is worth starting.
+     *
+     * @param budget The time the move may take.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(TimeBudget budget) {
+        context.start(budget.getTimeLeft());
 
         Player maxPlayer = baseGame.getCurrentPlayer();
-        Player minPlayer = baseGame.getOpponent();
+
+        moveOrdering.newSearch();
+        transpositionTable.newSearch();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+
+        int maxDepth = baseGame.getBoard().getCellCount() - 1;
+        SearchResult result = deepening.searchWithAspiration(budget, maxDepth, rootMoves,
+            (depth, alpha, beta) -> {
+                int move = searchRoot(game, depth, alpha, beta);
+                int[] pv = getPrincipalVariation(game, depth + 1);
+                return new SearchResult(move, rootScore, depth, pv);
+            });
+
+        GameModelPool.release(game);
+        return result;
+    }
+
+    /**
+     * Stops the running search, it returns the best move it has finished so far.
+     */
+    @Override
+    public void stop() {
+        context.stop();
+    }
+
+    /**
+     * Clears a stop, so the next search runs again.
+     */
+    @Override
+    public void reset() {
+        context.reset();
+    }
+
+    /**
+     * Sets the width of the aspiration window: how far the score of a depth may be from the score
+     * of the previous depth before that depth is searched again with a wider window.
+     *
+     * @param aspirationWindow The distance from the previous score to either side of the window.
+     */
+    public void setAspirationWindow(float aspirationWindow) {
+        deepening.setAspirationWindow(aspirationWindow);
+    }
+
+    /**
+     * Returns the principal variation of the root, extended with the best moves from the
+     * transposition table where it was cut short.
+     *
+     * @param game  The game at the root.
+     * @param depth The depth of the root.
+     * @return The principal variation.
+     */
+    private int[] getPrincipalVariation(GameModel game, int depth) {
+        return PrincipalVariation.extend(game, baseGame.getCurrentPlayer(),
+            principalVariation.get(depth), depth, moveLists[0], this::getTableMove);
+    }
+
+    /**
+     * Returns the best move the transposition table holds for the position.
+     *
+     * @param game   Current game state.
+     * @param player The player to move.
+     * @return The best move, or -1 if there is none.
+     */
+    private int getTableMove(GameModel game, Player player) {
+        TranspositionEntry entry = transpositionTable.get(createHash(game, player));
+        return entry == null ? -1 : fromTableMove(game, entry.move());
+    }
+
+    /**
+     * Searches all root moves with the given window, in the order of the previous depth. The
+     * score of the best move is left in rootScore, it is only a bound when it falls outside the
+     * window.
+     *
+     * @param game  The game to search in.
+     * @param depth The depth to search to.
+     * @param alpha The lower bound of the window.
+     * @param beta  The upper bound of the window.
+     * @return The best move that was searched completely, or -1 if there is none.
+     */
+    private int searchRoot(GameModel game, int depth, float alpha, float beta) {
+        Player maxPlayer = baseGame.getCurrentPlayer();
+        Player minPlayer = baseGame.getOpponent(maxPlayer);
 
         int bestMove = -1;
-        List<Integer> moves = baseGame.getValidMoves(maxPlayer.getId());
+        rootScore = Integer.MIN_VALUE;
+        rootMoves.resetScores();
+        principalVariation.clear(depth + 1);
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            game.makeMove(move, maxPlayer.getId());
+            float score;
+            try {
+                score = minimax(game, depth, alpha, beta, minPlayer);
+            } catch (SearchAbortedException e) {
+                // The moves below the root were never taken back.
+                game.copyFrom(baseGame);
+                break;
+            }
+            game.undoMove();
 
-        outer: for (int d = 1; d < baseGame.getBoard().getCellCount(); d++) {
-            int tempMove = -1;
-            float maxScore = Integer.MIN_VALUE;
+            rootMoves.setScore(i, score);
+            if (score > rootScore || bestMove == -1) {
+                rootScore = score;
+                bestMove = move;
+                principalVariation.update(depth + 1, move);
+            }
 
-            for (int move : moves) {
-                if (System.currentTimeMillis() >= endTime) {
-                    break outer;
-                }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
 
-                GameModel clone = baseGame.clone();
-                clone.setMove(move, maxPlayer.getId());
+        return bestMove;
+    }
 
-                float score = minimax(clone, d, Integer.MIN_VALUE, Integer.MAX_VALUE, minPlayer);
-                if (score > maxScore) {
-                    maxScore = score;
-                    tempMove = move;
-                }
+    /**
+     * Returns the key of the position in the transposition table.
+     *
+     * @param game   Current game state.
+     * @param player The player whose turn it is.
+     * @return The key of the position.
+     */
+    private long createHash(GameModel game, Player player) {
+        if (isSymmetric(game)) {
+            return game.getCanonicalHash(player.getId());
+        }
+
+        return TranspositionEntry.createHash(game.getBoard(), player);
+    }
+
+    /**
+     * Returns the key of the position after the move in the transposition table, without making
+     * the move when the child does not use the canonical hash.
+     *
+     * @param game   Current game state.
+     * @param move   The move to play.
+     * @param player The player who plays the move.
+     * @return The key of the position after the move.
+     */
+    private long createChildHash(GameModel game, int move, Player player) {
+        // The move adds a single stone to the board.
+        if (!isSymmetric(getStones(game) + 1)) {
+            return game.getHashAfter(move, player.getId());
+        }
+
+        game.makeMove(move, player.getId());
+        long hash = createHash(game, game.getOpponent(player));
+        game.undoMove();
+        return hash;
+    }
+
+    /**
+     * Enhanced transposition cutoff: looks up every child in the transposition table before
+     * searching any of them. When the stored bound of a child already refutes the window, the
+     * node is cut off without a search. The cutoff is stored like a normal one.
+     *
+     * @param game   Current game state.
+     * @param moves  The moves of the node.
+     * @param ttKey  The key of the node in the transposition table.
+     * @param depth  The depth of the node.
+     * @param alpha  The lower bound of the window.
+     * @param beta   The upper bound of the window.
+     * @param player The player to move.
+     * @return The score to cut off with, or NaN if no child refutes the window.
+     */
+    private float getTranspositionCutoff(GameModel game, MoveList moves, long ttKey, int depth,
+                                         float alpha, float beta, Player player) {
+        boolean isMaxPlayer = player == baseGame.getCurrentPlayer();
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            TranspositionEntry child = transpositionTable.get(createChildHash(game, move, player));
+            if (child == null || child.depth() < depth - 1) {
+                continue;
             }
 
-            if (!hasTimedOut || bestMove == -1) {
-                bestMove = tempMove;
+            // The max player gets at least a lower bound of a child, the min player at most an
+            // upper bound.
+            boolean refutes = isMaxPlayer
+                ? child.flag() != TranspositionEntry.Flags.UPPER_BOUND && child.value() >= beta
+                : child.flag() != TranspositionEntry.Flags.LOWER_BOUND && child.value() <= alpha;
+
+            if (refutes) {
+                TranspositionEntry.Flags flag = isMaxPlayer
+                    ? TranspositionEntry.Flags.LOWER_BOUND
+                    : TranspositionEntry.Flags.UPPER_BOUND;
+                transpositionTable.put(ttKey, new TranspositionEntry(
+                    child.value(), depth, flag, toTableMove(game, move)));
+                return child.value();
             }
         }
 
-        endTime = null;
-        hasTimedOut = false;
+        return Float.NaN;
+    }
 
-        return bestMove;
+    /**
+     * Returns a move from the transposition table as a move on the board. Positions that share
+     * their entry with their symmetries store the move on the canonical board.
+     *
+     * @param game Current game state.
+     * @param move The move from the table.
+     * @return The move on the board, or -1 if there is none.
+     */
+    private int fromTableMove(GameModel game, int move) {
+        if (move == -1 || !isSymmetric(game)) {
+            return move;
+        }
+
+        return Symmetry.inverse(move, game.getBoard().getSize(), game.getCanonicalSymmetry());
+    }
+
+    /**
+     * Returns whether the position shares its transposition table entry with its rotations and
+     * reflections.
+     *
+     * @param game Current game state.
+     * @return Whether the canonical hash is used.
+     */
+    private boolean isSymmetric(GameModel game) {
+        return isSymmetric(getStones(game));
+    }
+
+    /**
+     * Returns whether a position with the given amount of stones shares its transposition table
+     * entry with its rotations and reflections.
+     *
+     * @param stones The amount of stones on the board.
+     * @return Whether the canonical hash is used.
+     */
+    private boolean isSymmetric(int stones) {
+        return stones <= SYMMETRY_MAX_STONES;
+    }
+
+    /**
+     * Returns the amount of stones on the board.
+     *
+     * @param game Current game state.
+     * @return The amount of stones.
+     */
+    private int getStones(GameModel game) {
+        GameBoard board = game.getBoard();
+        return board.getCellCount() - board.getEmptyCellCount();
+    }
+
+    /**
+     * Returns a move on the board as it is stored in the transposition table, the opposite of
+     * fromTableMove.
+     *
+     * @param game Current game state.
+     * @param move The move on the board.
+     * @return The move to store in the table, or -1 if there is none.
+     */
+    private int toTableMove(GameModel game, int move) {
+        if (move == -1 || !isSymmetric(game)) {
+            return move;
+        }
+
+        return Symmetry.transform(move, game.getBoard().getSize(), game.getCanonicalSymmetry());
     }
 
     /**
@@ -118,12 +393,10 @@ public class MiniMaxOptimized implements MiniMax {
      * @return The best (or worst) value of any board.
      */
     private float minimax(GameModel game, int depth, float alpha, float beta, Player player) {
-        if (endTime != null && System.currentTimeMillis() >= endTime) {
-            hasTimedOut = true;
-            return Integer.MIN_VALUE;
-        }
+        principalVariation.clear(depth);
+        context.poll();
 
-        int ttKey = TranspositionEntry.createHash(game.getBoard(), player);
+        long ttKey = createHash(game, player);
         TranspositionEntry ttEntry = transpositionTable.get(ttKey);
 
         if (ttEntry != null && ttEntry.depth() >= depth) {
@@ -143,43 +416,73 @@ public class MiniMaxOptimized implements MiniMax {
 
         Player maxPlayer = baseGame.getCurrentPlayer();
 
-        List<Integer> moves = game.getValidMoves(player.getId());
-        if (depth == 0 || moves.size() == 0 || game.getState() != GameModel.GameState.PLAYING) {
+        if (depth == 0 || game.getCertainResult() != GameModel.GameState.PLAYING) {
+            return game.getScore(maxPlayer, depth);
+        }
+
+        MoveList moves = moveLists[depth];
+        game.getValidMoves(player.getId(), moves);
+        if (moves.isEmpty()) {
             return game.getScore(maxPlayer, depth);
         }
 
+        if (depth >= ETC_MIN_DEPTH) {
+            float cutoff = getTranspositionCutoff(game, moves, ttKey, depth, alpha, beta, player);
+            if (!Float.isNaN(cutoff)) {
+                return cutoff;
+            }
+        }
+
+        int tableMove = ttEntry == null ? -1 : fromTableMove(game, ttEntry.move());
+        moveOrdering.order(game.getBoard(), moves, player.getId(), tableMove);
+
+        float originalAlpha = alpha;
+        float originalBeta = beta;
         float maxScore = player == maxPlayer
                 ? Integer.MIN_VALUE
                 : Integer.MAX_VALUE;
+        int bestMove = -1;
 
         Player opponent = game.getOpponent(player);
-        for (int move : moves) {
-            GameModel clone = game.clone();
-            clone.setMove(move, player.getId());
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            game.makeMove(move, player.getId());
+            float score = minimax(game, depth - 1, alpha, beta, opponent);
+            game.undoMove();
+
+            if (player == maxPlayer ? score > alpha : score < beta) {
+                principalVariation.update(depth, move);
+            }
+
+            boolean isBetter = player == maxPlayer ? score > maxScore : score < maxScore;
+            if (isBetter || bestMove == -1) {
+                maxScore = score;
+                bestMove = move;
+            }
 
-            float score = minimax(clone, depth - 1, alpha, beta, opponent);
             if (player == maxPlayer) {
-                maxScore = Math.max(maxScore, score);
                 alpha = Math.max(alpha, maxScore);
             } else {
-                maxScore = Math.min(maxScore, score);
                 beta = Math.min(beta, maxScore);
             }
 
             if (beta <= alpha) {
+                moveOrdering.recordCutoff(game.getBoard(), move, player.getId(), depth);
                 break;
             }
         }
 
+        // Compare against the window the node was searched with, the narrowed window says nothing
+        // about whether the score is exact.
         TranspositionEntry.Flags ttFlag = TranspositionEntry.Flags.EXACT;
-        if (maxScore <= alpha) {
+        if (maxScore <= originalAlpha) {
             ttFlag = TranspositionEntry.Flags.UPPER_BOUND;
-        }
-        if (maxScore >= beta) {
+        } else if (maxScore >= originalBeta) {
             ttFlag = TranspositionEntry.Flags.LOWER_BOUND;
         }
 
-        transpositionTable.put(ttKey, new TranspositionEntry(maxScore, depth, ttFlag));
+        transpositionTable.put(ttKey,
+            new TranspositionEntry(maxScore, depth, ttFlag, toTableMove(game, bestMove)));
 
         return maxScore;
     }
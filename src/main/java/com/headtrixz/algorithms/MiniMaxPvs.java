@@ -0,0 +1,429 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.GameModelPool;
+import com.headtrixz.game.MoveList;
+import com.headtrixz.game.players.Player;
+
+/**
+ * Represents Principal Variation Search (NegaScout) with Transposition Tables. The first move of
+ * every node is searched with the full window, the other moves with a null window that only
+ * proves they are not better. A move is only searched again with the full window when it turns
+ * out to be better after all. Late moves are searched less deep first, see
+ * {@link LateMoveReductions}.
+ */
+public class MiniMaxPvs implements MiniMax {
+    private static final int TABLE_BITS = 20;
+
+    private final GameModel baseGame;
+    private final RootMoves rootMoves;
+    private final MoveList[] moveLists;
+    private final MoveOrdering moveOrdering;
+    private final PrincipalVariation principalVariation;
+    private final TranspositionTable transpositionTable;
+    private Player maxPlayer;
+    private ProbCut probCut;
+    private LateMoveReductions lateMoveReductions;
+    private float rootScore;
+    private final SearchContext context = new SearchContext();
+    private final IterativeDeepening deepening = new IterativeDeepening(context);
+
+    /**
+     * Represents Principal Variation Search with Transposition Tables.
+     *
+     * @param game The game the AI is currently playing in.
+     */
+    public MiniMaxPvs(GameModel game) {
+        this.baseGame = game;
+        this.transpositionTable = new TranspositionTable(TABLE_BITS);
+
+        // One move list per depth, so generating moves does not allocate.
+        int cellCount = game.getBoard().getCellCount();
+        this.rootMoves = new RootMoves(cellCount);
+        this.moveLists = new MoveList[cellCount + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList(cellCount);
+        }
+        this.moveOrdering = new MoveOrdering(cellCount);
+        this.principalVariation = new PrincipalVariation(cellCount);
+        this.probCut = ProbCut.load(game);
+        this.lateMoveReductions = LateMoveReductions.forGame(game);
+    }
+
+    /**
+     * Returns the best move the current player can play based on the current game state.
+     */
+    @Override
+    public int getMove() {
+        return getMove(baseGame.getBoard().getCellCount());
+    }
+
+    /**
+     * Returns the best move the current player can play based on the current game state.
+     *
+     * @param maxDepth The max depth the algorithm should search.
+     */
+    @Override
+    public int getMove(int maxDepth) {
+        maxPlayer = baseGame.getCurrentPlayer();
+
+        context.start();
+        moveOrdering.newSearch();
+        transpositionTable.newSearch();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+
+        int depth = Math.min(maxDepth, moveLists.length - 1);
+        int bestMove = searchRoot(game, depth, Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+        GameModelPool.release(game);
+        return bestMove;
+    }
+
+    /**
+     * Searches the current position to a fixed depth and returns its score for the current
+     * player. Used to calibrate ProbCut, which should be turned off for that.
+     *
+     * @param maxDepth The depth to search to.
+     * @return The score, or Integer.MIN_VALUE if the current player has no moves.
+     */
+    public float getScore(int maxDepth) {
+        getMove(maxDepth);
+        return rootScore;
+    }
+
+    /**
+     * Returns the best move the current player can play based on the current game state. Every
+     * depth is searched with a window around the score of the previous depth. When the score falls
+     * outside the window, the failing side is widened and the depth is searched again.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The best move of the board.
+     */
+    @Override
+    public int iterativeDeepening(int timeout) {
+        return search(timeout).move();
+    }
+
+    /**
+     * Searches the same way as iterativeDeepening, but also returns the score, the depth and the
+     * principal variation of the best move.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(int timeout) {
+        return search(TimeBudget.fixed(timeout));
+    }
+
+    /**
+     * Searches the same way as search, but after every depth the budget decides whether the next
+     * depth is worth starting.
+     *
+     * @param budget The time the move may take.
+     * @return The result of the search.
+     */
+    @Override
+    public SearchResult search(TimeBudget budget) {
+        context.start(budget.getTimeLeft());
+        maxPlayer = baseGame.getCurrentPlayer();
+
+        moveOrdering.newSearch();
+        transpositionTable.newSearch();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+
+        int maxDepth = baseGame.getBoard().getCellCount() - 1;
+        SearchResult result = deepening.searchWithAspiration(budget, maxDepth, rootMoves,
+            (depth, alpha, beta) -> {
+                int move = searchRoot(game, depth, alpha, beta);
+                return new SearchResult(move, rootScore, depth, getPrincipalVariation(game, depth));
+            });
+
+        GameModelPool.release(game);
+        return result;
+    }
+
+    /**
+     * Stops the running search, it returns the best move it has finished so far.
+     */
+    @Override
+    public void stop() {
+        context.stop();
+    }
+
+    /**
+     * Clears a stop, so the next search runs again.
+     */
+    @Override
+    public void reset() {
+        context.reset();
+    }
+
+    /**
+     * Sets the width of the aspiration window: how far the score of a depth may be from the score
+     * of the previous depth before that depth is searched again with a wider window.
+     *
+     * @param aspirationWindow The distance from the previous score to either side of the window.
+     */
+    public void setAspirationWindow(float aspirationWindow) {
+        deepening.setAspirationWindow(aspirationWindow);
+    }
+
+    /**
+     * Sets the late move reductions. By default the reductions of the game are used, see
+     * {@link LateMoveReductions#forGame}.
+     *
+     * @param lateMoveReductions The reductions, {@link LateMoveReductions#none} turns them off.
+     */
+    public void setLateMoveReductions(LateMoveReductions lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * Sets the Multi-ProbCut parameters. By default the parameters of the game are loaded from
+     * the resources, if it has been calibrated.
+     *
+     * @param probCut The parameters, or null to turn ProbCut off.
+     */
+    public void setProbCut(ProbCut probCut) {
+        this.probCut = probCut;
+    }
+
+    /**
+     * Returns the principal variation of the root, extended with the best moves from the
+     * transposition table where it was cut short.
+     *
+     * @param game  The game at the root.
+     * @param depth The depth of the root.
+     * @return The principal variation.
+     */
+    private int[] getPrincipalVariation(GameModel game, int depth) {
+        return PrincipalVariation.extend(game, maxPlayer, principalVariation.get(depth), depth,
+            moveLists[0], this::getTableMove);
+    }
+
+    /**
+     * Returns the best move the transposition table holds for the position.
+     *
+     * @param game   Current game state.
+     * @param player The player to move.
+     * @return The best move, or -1 if there is none.
+     */
+    private int getTableMove(GameModel game, Player player) {
+        long key = TranspositionEntry.createHash(game.getBoard(), player);
+        TranspositionEntry entry = transpositionTable.get(key);
+        return entry == null ? -1 : entry.move();
+    }
+
+    /**
+     * Searches all root moves with the given window, in the order of the previous depth. The
+     * score of the best move is left in rootScore, it is only a bound when it falls outside the
+     * window.
+     *
+     * @param game  The game to search in.
+     * @param depth The depth to search to.
+     * @param alpha The lower bound of the window.
+     * @param beta  The upper bound of the window.
+     * @return The best move that was searched completely, or -1 if there is none.
+     */
+    private int searchRoot(GameModel game, int depth, float alpha, float beta) {
+        Player opponent = game.getOpponent(maxPlayer);
+        int bestMove = -1;
+        rootScore = Integer.MIN_VALUE;
+        rootMoves.resetScores();
+        principalVariation.clear(depth);
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            game.makeMove(move, maxPlayer.getId());
+            float score;
+            try {
+                if (i == 0) {
+                    score = -pvs(game, depth - 1, -beta, -alpha, opponent);
+                } else {
+                    score = -pvs(game, depth - 1, -Math.nextUp(alpha), -alpha, opponent);
+                    if (score > alpha && score < beta) {
+                        score = -pvs(game, depth - 1, -beta, -score, opponent);
+                    }
+                }
+            } catch (SearchAbortedException e) {
+                // The moves below the root were never taken back.
+                game.copyFrom(baseGame);
+                break;
+            }
+            game.undoMove();
+
+            rootMoves.setScore(i, score);
+            if (score > rootScore || bestMove == -1) {
+                rootScore = score;
+                bestMove = move;
+                principalVariation.update(depth, move);
+            }
+
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        return bestMove;
+    }
+
+    /**
+     * Returns the score of the game for the player to move. The games score everything from the
+     * perspective of the player at the root, so the score is negated for the opponent.
+     *
+     * @param game   Current game state.
+     * @param depth  The depth that is left.
+     * @param player The player to move.
+     * @return The score for the player to move.
+     */
+    private float evaluate(GameModel game, int depth, Player player) {
+        float score = game.getScore(maxPlayer, depth);
+        return player == maxPlayer ? score : -score;
+    }
+
+    /**
+     * Multi-ProbCut: shallow searches predict whether the deep search would fail high or low.
+     * Every check searches the bound the prediction has to reach with a null window.
+     *
+     * @param game   Current game state.
+     * @param depth  The depth of the deep search.
+     * @param alpha  The lower bound of the null window.
+     * @param beta   The upper bound of the null window.
+     * @param player The player to move.
+     * @return The bound the deep search is expected to fail on, or NaN if it has to be searched.
+     */
+    private float probCut(GameModel game, int depth, float alpha, float beta, Player player) {
+        float threshold = probCut.getThreshold();
+        for (ProbCut.Check check : probCut.getChecks(depth)) {
+            float margin = threshold * check.deviation();
+
+            float bound = (beta + margin - check.intercept()) / check.slope();
+            if (pvs(game, check.shallowDepth(), Math.nextDown(bound), bound, player) >= bound) {
+                return beta;
+            }
+
+            bound = (alpha - margin - check.intercept()) / check.slope();
+            if (pvs(game, check.shallowDepth(), bound, Math.nextUp(bound), player) <= bound) {
+                return alpha;
+            }
+        }
+
+        return Float.NaN;
+    }
+
+    /**
+     * The principal variation search in negamax form: every score is from the perspective of the
+     * player to move.
+     *
+     * @param game   Current game state.
+     * @param depth  The max depth the algorithm should search.
+     * @param alpha  The lowest score the player to move is already assured of.
+     * @param beta   The highest score the opponent allows the player to move.
+     * @param player The player to move.
+     * @return The score of the position for the player to move.
+     */
+    private float pvs(GameModel game, int depth, float alpha, float beta, Player player) {
+        principalVariation.clear(depth);
+        context.poll();
+
+        if (depth == 0 || game.getCertainResult() != GameModel.GameState.PLAYING) {
+            return evaluate(game, depth, player);
+        }
+
+        long ttKey = TranspositionEntry.createHash(game.getBoard(), player);
+        TranspositionEntry ttEntry = transpositionTable.get(ttKey);
+
+        if (ttEntry != null && ttEntry.depth() >= depth) {
+            switch (ttEntry.flag()) {
+                case EXACT -> {
+                    return ttEntry.value();
+                }
+                case LOWER_BOUND -> alpha = Math.max(alpha, ttEntry.value());
+                case UPPER_BOUND -> beta = Math.min(beta, ttEntry.value());
+                default -> throw new IllegalStateException("Invalid flag");
+            }
+
+            if (beta <= alpha) {
+                return ttEntry.value();
+            }
+        }
+
+        // Only null windows are cut, a mistake in the principal variation costs too much.
+        if (probCut != null && Math.nextUp(alpha) == beta && probCut.isApplicable(game)) {
+            float cut = probCut(game, depth, alpha, beta, player);
+            if (!Float.isNaN(cut)) {
+                return cut;
+            }
+        }
+
+        Player opponent = game.getOpponent(player);
+        MoveList moves = moveLists[depth];
+        game.getValidMoves(player.getId(), moves);
+
+        // The player has to pass, the game is not over yet so the opponent can still move.
+        if (moves.isEmpty()) {
+            float score = -pvs(game, depth - 1, -beta, -alpha, opponent);
+            principalVariation.update(depth, -1);
+            return score;
+        }
+
+        int tableMove = ttEntry == null ? -1 : ttEntry.move();
+        moveOrdering.order(game.getBoard(), moves, player.getId(), tableMove);
+
+        float originalAlpha = alpha;
+        float maxScore = Integer.MIN_VALUE;
+        int bestMove = -1;
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            game.makeMove(move, player.getId());
+            float score;
+            if (i == 0) {
+                score = -pvs(game, depth - 1, -beta, -alpha, opponent);
+            } else {
+                int reduction = lateMoveReductions.getReduction(depth, i, move);
+                score = -pvs(game, depth - 1 - reduction, -Math.nextUp(alpha), -alpha, opponent);
+
+                // A reduced move that beats alpha is searched again at the full depth.
+                if (reduction > 0 && score > alpha) {
+                    score = -pvs(game, depth - 1, -Math.nextUp(alpha), -alpha, opponent);
+                }
+
+                if (score > alpha && score < beta) {
+                    score = -pvs(game, depth - 1, -beta, -score, opponent);
+                }
+            }
+            game.undoMove();
+
+            if (score > maxScore || bestMove == -1) {
+                maxScore = score;
+                bestMove = move;
+            }
+
+            if (score > alpha) {
+                principalVariation.update(depth, move);
+            }
+
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                moveOrdering.recordCutoff(game.getBoard(), move, player.getId(), depth);
+                break;
+            }
+        }
+
+        TranspositionEntry.Flags ttFlag = TranspositionEntry.Flags.EXACT;
+        if (maxScore <= originalAlpha) {
+            ttFlag = TranspositionEntry.Flags.UPPER_BOUND;
+        } else if (maxScore >= beta) {
+            ttFlag = TranspositionEntry.Flags.LOWER_BOUND;
+        }
+
+        transpositionTable.put(ttKey, new TranspositionEntry(maxScore, depth, ttFlag, bestMove));
+
+        return maxScore;
+    }
+}
@@ -1,10 +1,11 @@
 package com.headtrixz.algorithms;
 
 import com.headtrixz.game.GameModel;
+import com.headtrixz.game.GameModelPool;
+import com.headtrixz.game.MoveList;
 import com.headtrixz.game.players.Player;
 import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -12,9 +13,10 @@ import java.util.Map;
  */
 public class MiniMaxTransposition implements MiniMax {
     private final GameModel baseGame;
-    private final Map<Integer, TranspositionEntry> transpositionTable;
-    private Long endTime;
-    private boolean hasTimedOut = false;
+    private final RootMoves rootMoves;
+    private final MoveList[] moveLists;
+    private final Map<Long, TranspositionEntry> transpositionTable;
+    private final SearchContext context = new SearchContext();
 
     /**
      * Create a new BasicMiniMax object.
@@ -22,6 +24,14 @@ public class MiniMaxTransposition implements MiniMax {
     public MiniMaxTransposition(GameModel game) {
         this.baseGame = game;
         this.transpositionTable = new HashMap<>();
+
+        // One move list per depth, so generating moves does not allocate.
+        int cellCount = game.getBoard().getCellCount();
+        this.rootMoves = new RootMoves(cellCount);
+        this.moveLists = new MoveList[cellCount + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList(cellCount);
+        }
     }
 
     /**
@@ -45,17 +55,31 @@ public class MiniMaxTransposition implements MiniMax {
         int bestMove = -1;
         float value = Integer.MIN_VALUE;
 
-        for (int move : baseGame.getValidMoves(maxPlayer.getId())) {
-            GameModel clone = baseGame.clone();
-            clone.setMove(move, maxPlayer.getId());
+        context.start();
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
+        maxDepth = Math.min(maxDepth, moveLists.length - 1);
+
+        for (int i = 0; i < rootMoves.size(); i++) {
+            int move = rootMoves.get(i);
+            game.makeMove(move, maxPlayer.getId());
+            float score;
+            try {
+                score = minimax(game, maxDepth, minPlayer);
+            } catch (SearchAbortedException e) {
+                // The moves below the root were never taken back.
+                game.copyFrom(baseGame);
+                break;
+            }
+            game.undoMove();
 
-            float score = minimax(clone, maxDepth, minPlayer);
             if (score > value || bestMove == -1) {
                 value = score;
                 bestMove = move;
             }
         }
 
+        GameModelPool.release(game);
         return bestMove;
     }
 
@@ -66,44 +90,79 @@ public class MiniMaxTransposition implements MiniMax {
      * @return The best move of the board.
      */
     public int iterativeDeepening(int timeout) {
-        endTime = System.currentTimeMillis() + timeout;
+        context.start(timeout);
 
         Player maxPlayer = baseGame.getCurrentPlayer();
         Player minPlayer = baseGame.getOpponent();
 
         int bestMove = -1;
-        List<Integer> moves = baseGame.getValidMoves(maxPlayer.getId());
+        GameModel game = GameModelPool.acquire(baseGame);
+        rootMoves.fill(game, maxPlayer.getId());
 
-        outer: for (int d = 1; d < baseGame.getBoard().getCellCount(); d++) {
+        for (int d = 1; d < baseGame.getBoard().getCellCount(); d++) {
             int tempMove = -1;
             float maxScore = Integer.MIN_VALUE;
-
-            for (int move : moves) {
-                if (System.currentTimeMillis() >= endTime) {
-                    break outer;
+            rootMoves.resetScores();
+
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                game.makeMove(move, maxPlayer.getId());
+                float score;
+                try {
+                    score = minimax(game, d, minPlayer);
+                } catch (SearchAbortedException e) {
+                    // The moves below the root were never taken back.
+                    game.copyFrom(baseGame);
+                    break;
                 }
+                game.undoMove();
 
-                GameModel clone = baseGame.clone();
-                clone.setMove(move, maxPlayer.getId());
-
-                float score = minimax(clone, d, minPlayer);
-                if (score > maxScore) {
+                rootMoves.setScore(i, score);
+                if (score > maxScore || tempMove == -1) {
                     maxScore = score;
                     tempMove = move;
                 }
             }
 
-            if (!hasTimedOut || bestMove == -1) {
+            // The previous best is searched first, so a move of an unfinished depth that was
+            // searched completely is at least as good.
+            if (tempMove != -1) {
                 bestMove = tempMove;
             }
+
+            if (context.isAborted()) {
+                break;
+            }
+
+            rootMoves.sort();
         }
 
-        endTime = null;
-        hasTimedOut = false;
+        GameModelPool.release(game);
+
+        // Not even the first move of the first depth was finished, any move is better than none.
+        if (bestMove == -1 && rootMoves.size() > 0) {
+            bestMove = rootMoves.get(0);
+        }
 
         return bestMove;
     }
 
+    /**
+     * Stops the running search, it returns the best move it has finished so far.
+     */
+    @Override
+    public void stop() {
+        context.stop();
+    }
+
+    /**
+     * Clears a stop, so the next search runs again.
+     */
+    @Override
+    public void reset() {
+        context.reset();
+    }
+
     /**
      * The minimax algorithm.
      *
@@ -113,12 +172,9 @@ public class MiniMaxTransposition implements MiniMax {
      * @return The best (or worst) value of any board.
      */
     private float minimax(GameModel game, int depth, Player player) {
-        if (endTime != null && System.currentTimeMillis() >= endTime) {
-            hasTimedOut = true;
-            return Integer.MIN_VALUE;
-        }
+        context.poll();
 
-        int ttKey = TranspositionEntry.createHash(game.getBoard(), player);
+        long ttKey = TranspositionEntry.createHash(game.getBoard(), player);
         TranspositionEntry ttEntry = transpositionTable.get(ttKey);
 
         if (ttEntry != null && ttEntry.depth() >= depth) {
@@ -127,8 +183,13 @@ public class MiniMaxTransposition implements MiniMax {
 
         Player maxPlayer = baseGame.getCurrentPlayer();
 
-        List<Integer> moves = game.getValidMoves(player.getId());
-        if (depth == 0 || moves.size() == 0 || game.getState() != GameModel.GameState.PLAYING) {
+        if (depth == 0 || game.getState() != GameModel.GameState.PLAYING) {
+            return game.getScore(maxPlayer, depth);
+        }
+
+        MoveList moves = moveLists[depth];
+        game.getValidMoves(player.getId(), moves);
+        if (moves.isEmpty()) {
             return game.getScore(maxPlayer, depth);
         }
 
@@ -137,11 +198,12 @@ public class MiniMaxTransposition implements MiniMax {
             : Integer.MAX_VALUE;
 
         Player opponent = game.getOpponent(player);
-        for (int move : game.getValidMoves(player.getId())) {
-            GameModel clone = game.clone();
-            clone.setMove(move, player.getId());
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            game.makeMove(move, player.getId());
+            float score = minimax(game, depth - 1, opponent);
+            game.undoMove();
 
-            float score = minimax(clone, depth - 1, opponent);
             maxScore = player == maxPlayer
                 ? Math.max(maxScore, score)
                 : Math.min(maxScore, score);
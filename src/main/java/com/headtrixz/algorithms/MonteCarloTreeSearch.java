@@ -0,0 +1,358 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.GameModelPool;
+import com.headtrixz.game.MoveList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents Monte Carlo Tree Search with UCT. Instead of scoring positions with the game, every
+ * iteration walks down the tree to a leaf, plays random moves from there to the end of the game
+ * and counts the result in every node it passed. Children are chosen by their win rate plus a
+ * bonus for being visited rarely, so the tree grows towards the best moves while still trying the
+ * others. The engine gets stronger with time instead of with depth.
+ *
+ * <p>The tree is stored in arrays indexed by node, the children of a node are next to each other
+ * so a node only needs to know its first child and how many it has.
+ */
+public class MonteCarloTreeSearch implements MiniMax {
+    private static final int MAX_NODES = 1 << 20;
+    private static final int DEFAULT_ITERATIONS = 100000;
+    private static final float DEFAULT_EXPLORATION = 1.4f;
+    private static final int UNEXPANDED = -1;
+    private static final int POLL_INTERVAL = 64;
+
+    private final GameModel baseGame;
+    private final MoveList moves;
+    private final int[] path;
+    private final int[] pathPlayers;
+    private final SearchContext context = new SearchContext(POLL_INTERVAL);
+
+    // The tree, one entry per node. Wins are counted for the player that played the move.
+    private final int[] nodeMoves = new int[MAX_NODES];
+    private final int[] firstChildren = new int[MAX_NODES];
+    private final int[] childCounts = new int[MAX_NODES];
+    private final int[] visits = new int[MAX_NODES];
+    private final float[] wins = new float[MAX_NODES];
+    private int nodeCount;
+
+    private float exploration = DEFAULT_EXPLORATION;
+    private int maxDepth;
+
+    /**
+     * Represents Monte Carlo Tree Search.
+     *
+     * @param game The game the AI is currently playing in.
+     */
+    public MonteCarloTreeSearch(GameModel game) {
+        this.baseGame = game;
+
+        // A line never has more moves than the board has cells, plus a pass before every move.
+        int cellCount = game.getBoard().getCellCount();
+        this.moves = new MoveList(cellCount);
+        this.path = new int[2 * cellCount + 1];
+        this.pathPlayers = new int[2 * cellCount + 1];
+    }
+
+    /**
+     * Returns the best move after a fixed amount of iterations.
+     */
+    @Override
+    public int getMove() {
+        context.start();
+        return run(DEFAULT_ITERATIONS).move();
+    }
+
+    /**
+     * Returns the best move after a fixed amount of iterations, the depth is ignored.
+     *
+     * @param maxDepth The max depth the algorithm should search.
+     */
+    @Override
+    public int getMove(int maxDepth) {
+        return getMove();
+    }
+
+    /**
+     * Returns the most visited move after searching until the time runs out.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The best move of the board.
+     */
+    @Override
+    public int iterativeDeepening(int timeout) {
+        return search(timeout).move();
+    }
+
+    /**
+     * Searches the same way as iterativeDeepening, but also returns the win rate of the best move,
+     * the depth of the deepest leaf and the line of most visited moves.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The result of the search, its score is the win rate between 0 and 1.
+     */
+    @Override
+    public SearchResult search(int timeout) {
+        context.start(timeout);
+        return run(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sets the weight of the exploration bonus. Higher values try rarely visited moves more,
+     * lower values focus on the moves that won the most.
+     *
+     * @param exploration The exploration constant of UCT.
+     */
+    public void setExploration(float exploration) {
+        this.exploration = exploration;
+    }
+
+    /**
+     * Stops the running search, it returns the most visited move so far.
+     */
+    @Override
+    public void stop() {
+        context.stop();
+    }
+
+    /**
+     * Clears a stop, so the next search runs again.
+     */
+    @Override
+    public void reset() {
+        context.reset();
+    }
+
+    /**
+     * Builds a new tree for the current position, until the iterations or the time of the
+     * context run out.
+     *
+     * @param iterations The maximum amount of iterations.
+     * @return The result of the search.
+     */
+    private SearchResult run(int iterations) {
+        int player = baseGame.getCurrentPlayer().getId();
+        GameModel game = GameModelPool.acquire(baseGame);
+
+        nodeCount = 1;
+        maxDepth = 0;
+        nodeMoves[0] = -1;
+        childCounts[0] = UNEXPANDED;
+        visits[0] = 0;
+        wins[0] = 0;
+
+        try {
+            for (int i = 0; i < iterations; i++) {
+                context.poll();
+                iterate(game, player);
+            }
+        } catch (SearchAbortedException e) {
+            // Only polled between iterations, so the tree and the game are complete.
+        }
+
+        GameModelPool.release(game);
+        return getResult();
+    }
+
+    /**
+     * Runs one iteration: selects a leaf, expands it, plays a random game from it and counts the
+     * result on the way back.
+     *
+     * @param game   The game at the root, it is left as it was.
+     * @param player The player to move at the root.
+     */
+    private void iterate(GameModel game, int player) {
+        int node = 0;
+        int depth = 0;
+        int made = 0;
+        path[0] = 0;
+
+        while (game.getState() == GameModel.GameState.PLAYING) {
+            if (childCounts[node] == UNEXPANDED && !expand(game, node, player)) {
+                break;
+            }
+
+            node = selectChild(node);
+            pathPlayers[depth++] = player;
+            path[depth] = node;
+            if (nodeMoves[node] != -1) {
+                game.makeMove(nodeMoves[node], player);
+                made++;
+            }
+            player = player % 2 + 1;
+
+            if (visits[node] == 0) {
+                break;
+            }
+        }
+
+        maxDepth = Math.max(maxDepth, depth);
+        int winner = playout(game, player);
+
+        for (int i = 0; i < made; i++) {
+            game.undoMove();
+        }
+
+        visits[0]++;
+        for (int i = 1; i <= depth; i++) {
+            visits[path[i]]++;
+            wins[path[i]] += getReward(winner, pathPlayers[i - 1]);
+        }
+    }
+
+    /**
+     * Adds the children of a node, one for every valid move or a single pass when the player has
+     * no moves.
+     *
+     * @param game   The game in the position of the node.
+     * @param node   The node to expand.
+     * @param player The player to move in the node.
+     * @return Whether the node was expanded, false when the tree is full.
+     */
+    private boolean expand(GameModel game, int node, int player) {
+        game.getValidMoves(player, moves);
+        int count = Math.max(moves.size(), 1);
+        if (nodeCount + count > MAX_NODES) {
+            return false;
+        }
+
+        firstChildren[node] = nodeCount;
+        childCounts[node] = count;
+        for (int i = 0; i < count; i++) {
+            int child = nodeCount++;
+            nodeMoves[child] = moves.isEmpty() ? -1 : moves.get(i);
+            childCounts[child] = UNEXPANDED;
+            visits[child] = 0;
+            wins[child] = 0;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the child with the highest UCT value. Children that were never visited go first.
+     *
+     * @param node The node to select a child of.
+     * @return The selected child.
+     */
+    private int selectChild(int node) {
+        int first = firstChildren[node];
+        int end = first + childCounts[node];
+        double logVisits = Math.log(visits[node]);
+
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < end; child++) {
+            if (visits[child] == 0) {
+                return child;
+            }
+
+            double value = wins[child] / visits[child]
+                + exploration * Math.sqrt(logVisits / visits[child]);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Plays random moves until the game ends and takes them back again.
+     *
+     * @param game   The game to play in.
+     * @param player The player to move.
+     * @return The player that won, or 0 for a draw.
+     */
+    private int playout(GameModel game, int player) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int made = 0;
+
+        GameModel.GameState state = game.getState();
+        while (state == GameModel.GameState.PLAYING) {
+            game.getValidMoves(player, moves);
+            if (!moves.isEmpty()) {
+                game.makeMove(moves.get(random.nextInt(moves.size())), player);
+                made++;
+                state = game.getState();
+            }
+            player = player % 2 + 1;
+        }
+
+        for (int i = 0; i < made; i++) {
+            game.undoMove();
+        }
+
+        return switch (state) {
+            case PLAYER_ONE_WON -> 1;
+            case PLAYER_TWO_WON -> 2;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Returns what a result is worth to a player: a win counts as one, a draw as half.
+     *
+     * @param winner The player that won, or 0 for a draw.
+     * @param player The player to score the result for.
+     * @return The reward.
+     */
+    private static float getReward(int winner, int player) {
+        if (winner == 0) {
+            return 0.5f;
+        }
+
+        return winner == player ? 1 : 0;
+    }
+
+    /**
+     * Returns the most visited child of a node.
+     *
+     * @param node The node.
+     * @return The most visited child, or -1 if the node has no visited children.
+     */
+    private int getMostVisitedChild(int node) {
+        if (childCounts[node] == UNEXPANDED) {
+            return -1;
+        }
+
+        int best = -1;
+        int first = firstChildren[node];
+        for (int child = first; child < first + childCounts[node]; child++) {
+            if (visits[child] > 0 && (best == -1 || visits[child] > visits[best])) {
+                best = child;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Returns the most visited move at the root with its win rate, and the line that follows the
+     * most visited child from there.
+     *
+     * @return The result of the search.
+     */
+    private SearchResult getResult() {
+        int[] pv = new int[path.length];
+        int length = 0;
+        for (int node = getMostVisitedChild(0); node != -1; node = getMostVisitedChild(node)) {
+            pv[length++] = nodeMoves[node];
+        }
+
+        int best = getMostVisitedChild(0);
+        if (best == -1) {
+            // Not even one iteration finished, any move is better than none.
+            moves.clear();
+            baseGame.getValidMoves(baseGame.getCurrentPlayer().getId(), moves);
+            int move = moves.isEmpty() ? -1 : moves.get(0);
+            int[] line = move == -1 ? new int[0] : new int[] {move};
+            return new SearchResult(move, Float.NaN, 0, line);
+        }
+
+        return new SearchResult(nodeMoves[best], wins[best] / visits[best], maxDepth,
+            Arrays.copyOf(pv, length));
+    }
+}
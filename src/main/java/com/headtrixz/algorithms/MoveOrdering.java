@@ -0,0 +1,131 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameBoard;
+import com.headtrixz.game.MoveList;
+import java.util.Arrays;
+
+/**
+ * Sorts the moves of a position so the moves most likely to cause a cutoff are searched first.
+ * The best move from the transposition table goes first, then the killer moves: moves that caused
+ * a cutoff in another position with the same amount of stones. The rest is sorted by the history
+ * table, which counts how often a move caused a cutoff for a player anywhere in the tree.
+ */
+public class MoveOrdering {
+    private static final int KILLER_SLOTS = 2;
+    private static final int TABLE_MOVE_SCORE = Integer.MAX_VALUE;
+    private static final int KILLER_SCORE = Integer.MAX_VALUE - KILLER_SLOTS;
+    private static final int MAX_HISTORY = 1 << 24;
+
+    private final int[][] killers;
+    private final int[][] history;
+    private final int[] scores;
+
+    /**
+     * Creates an empty move ordering for a board.
+     *
+     * @param cellCount The number of cells on the board.
+     */
+    public MoveOrdering(int cellCount) {
+        this.killers = new int[cellCount + 1][KILLER_SLOTS];
+        this.history = new int[3][cellCount];
+        this.scores = new int[cellCount];
+        clearKillers();
+    }
+
+    /**
+     * Prepares for a new search. The killers belong to the previous position and are removed,
+     * the history is halved so it adapts to the new position but keeps what it learned.
+     */
+    public void newSearch() {
+        clearKillers();
+        halveHistory();
+    }
+
+    /**
+     * Sorts the moves, best first.
+     *
+     * @param board     The board of the position, used to look up the killer moves.
+     * @param moves     The moves to sort.
+     * @param player    The player to move.
+     * @param tableMove The best move from the transposition table, or -1.
+     */
+    public void order(GameBoard board, MoveList moves, int player, int tableMove) {
+        int[] plyKillers = killers[getPly(board)];
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score = history[player][move];
+            if (move == tableMove) {
+                score = TABLE_MOVE_SCORE;
+            } else {
+                for (int k = 0; k < KILLER_SLOTS; k++) {
+                    if (plyKillers[k] == move) {
+                        score = KILLER_SCORE - k;
+                    }
+                }
+            }
+
+            // Insertion sort, the lists are short and the scores are computed only once.
+            int j = i;
+            while (j > 0 && scores[j - 1] < score) {
+                scores[j] = scores[j - 1];
+                moves.swap(j, j - 1);
+                j--;
+            }
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Remembers that the move caused a cutoff, making it a killer for positions with the same
+     * amount of stones and raising its history score.
+     *
+     * @param board  The board of the position.
+     * @param move   The move that caused the cutoff.
+     * @param player The player that played the move.
+     * @param depth  The depth that was left, deeper cutoffs save more work and count more.
+     */
+    public void recordCutoff(GameBoard board, int move, int player, int depth) {
+        int[] plyKillers = killers[getPly(board)];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        history[player][move] += depth * depth;
+        if (history[player][move] > MAX_HISTORY) {
+            halveHistory();
+        }
+    }
+
+    /**
+     * Removes all killer moves.
+     */
+    private void clearKillers() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, -1);
+        }
+    }
+
+    /**
+     * Halves all history scores, so recent cutoffs weigh more than old ones.
+     */
+    private void halveHistory() {
+        for (int[] playerHistory : history) {
+            for (int i = 0; i < playerHistory.length; i++) {
+                playerHistory[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of stones on the board. Every move adds a stone, so it tells how far
+     * the position is from the start without the search having to keep track.
+     *
+     * @param board The board.
+     * @return The number of stones on the board.
+     */
+    private int getPly(GameBoard board) {
+        return board.getCellCount() - board.getEmptyCellCount();
+    }
+}
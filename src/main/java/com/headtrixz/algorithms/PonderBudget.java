@@ -0,0 +1,82 @@
+package com.headtrixz.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The budget of a search on the opponent's time. Until the opponent moves it searches like a plain
+ * timeout. When the opponent plays the reply the search expected, the budget of the move takes
+ * over, so the search stops the same way a search of the move itself would. The depths that were
+ * finished while pondering count towards the stability of the best move.
+ */
+public class PonderBudget extends TimeBudget {
+    private final List<Integer> moves = new ArrayList<>();
+    private final List<Float> scores = new ArrayList<>();
+    private volatile TimeBudget moveBudget;
+
+    /**
+     * Creates a budget that starts now.
+     *
+     * @param timeout The time in milliseconds the search may ponder at most.
+     */
+    public PonderBudget(int timeout) {
+        super(timeout, timeout, Float.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Hands the search over to the budget of the move, after the opponent played the expected
+     * reply. The depths finished so far are told to that budget first.
+     *
+     * @param budget The budget of the move.
+     */
+    public synchronized void startMove(TimeBudget budget) {
+        for (int i = 0; i < moves.size(); i++) {
+            budget.shouldStop(moves.get(i), scores.get(i));
+        }
+
+        moveBudget = budget;
+    }
+
+    /**
+     * Returns whether the search has finished a depth, so it stops itself by the budget. Engines
+     * that do not search in depths only know the timeout they started with.
+     *
+     * @return Whether a depth was finished.
+     */
+    public synchronized boolean hasFinishedDepth() {
+        return !moves.isEmpty();
+    }
+
+    @Override
+    public int getElapsed() {
+        TimeBudget budget = moveBudget;
+        return budget == null ? super.getElapsed() : budget.getElapsed();
+    }
+
+    @Override
+    public int getTimeLeft() {
+        TimeBudget budget = moveBudget;
+        return budget == null ? super.getTimeLeft() : budget.getTimeLeft();
+    }
+
+    @Override
+    public int getTargetTimeLeft() {
+        TimeBudget budget = moveBudget;
+        return budget == null ? super.getTargetTimeLeft() : budget.getTargetTimeLeft();
+    }
+
+    /**
+     * Tells the budget a depth was finished. While pondering the search only stops at the timeout,
+     * once the move has started the budget of the move decides.
+     *
+     * @param move  The best move of the depth.
+     * @param score The score of the best move.
+     * @return Whether the next depth is not worth starting.
+     */
+    @Override
+    public synchronized boolean shouldStop(int move, float score) {
+        moves.add(move);
+        scores.add(score);
+        return moveBudget != null && moveBudget.shouldStop(move, score);
+    }
+}
@@ -0,0 +1,143 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.MoveList;
+import com.headtrixz.game.players.Player;
+import java.util.Arrays;
+
+/**
+ * Collects the principal variation during a search in a triangular table. Every node has a row
+ * for the line below it, indexed by the depth that is left. When a move becomes the best move of
+ * a node, its row becomes the move followed by the row of the child it was searched in.
+ */
+public class PrincipalVariation {
+    /**
+     * Looks up the best move of a position in a transposition table.
+     */
+    @FunctionalInterface
+    public interface TableMoves {
+        /**
+         * Returns the best move stored for the position.
+         *
+         * @param game   The game in the position.
+         * @param player The player to move.
+         * @return The best move, or -1 if the position is not in the table.
+         */
+        int get(GameModel game, Player player);
+    }
+
+    private final int[][] lines;
+    private final int[] lengths;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param maxDepth The highest depth a node can have.
+     */
+    public PrincipalVariation(int maxDepth) {
+        this.lines = new int[maxDepth + 1][];
+        this.lengths = new int[maxDepth + 1];
+        for (int depth = 0; depth <= maxDepth; depth++) {
+            lines[depth] = new int[depth + 1];
+        }
+    }
+
+    /**
+     * Empties the line of a node, every node does this before it searches. A node that returns
+     * early, for example from the transposition table, leaves an empty line.
+     *
+     * @param depth The depth of the node.
+     */
+    public void clear(int depth) {
+        lengths[depth] = 0;
+    }
+
+    /**
+     * Returns a copy of the line of a node.
+     *
+     * @param depth The depth of the node.
+     * @return The moves of the line.
+     */
+    public int[] get(int depth) {
+        int[] line = new int[lengths[depth]];
+        System.arraycopy(lines[depth], 0, line, 0, line.length);
+        return line;
+    }
+
+    /**
+     * Makes the move followed by the line of its child the line of a node.
+     *
+     * @param depth The depth of the node.
+     * @param move  The new best move of the node, or -1 for a pass.
+     */
+    public void update(int depth, int move) {
+        int[] line = lines[depth];
+        line[0] = move;
+
+        int childLength = depth > 0 ? Math.min(lengths[depth - 1], line.length - 1) : 0;
+        if (childLength > 0) {
+            System.arraycopy(lines[depth - 1], 0, line, 1, childLength);
+        }
+        lengths[depth] = childLength + 1;
+    }
+
+    /**
+     * Extends a line with the best moves stored in a transposition table. Lines end early where a
+     * node returned a score from the table, and null window searches do not build lines at all.
+     * The moves are checked to be valid, so a collision in the table cannot corrupt the line.
+     *
+     * @param game      The game at the root of the line, it is left as it was.
+     * @param player    The player to move at the root.
+     * @param line      The start of the line.
+     * @param maxLength The maximum length of the line.
+     * @param moves     A move list to generate moves in.
+     * @param table     The best moves of the transposition table.
+     * @return The extended line.
+     */
+    public static int[] extend(GameModel game, Player player, int[] line, int maxLength,
+                               MoveList moves, TableMoves table) {
+        int[] extended = Arrays.copyOf(line, Math.max(line.length, maxLength));
+        int length = 0;
+        int made = 0;
+
+        while (length < extended.length && game.getState() == GameModel.GameState.PLAYING) {
+            int move = length < line.length ? line[length] : table.get(game, player);
+            game.getValidMoves(player.getId(), moves);
+
+            if (moves.isEmpty()) {
+                move = -1;
+            } else if (!contains(moves, move)) {
+                break;
+            } else {
+                game.makeMove(move, player.getId());
+                made++;
+            }
+
+            extended[length++] = move;
+            player = game.getOpponent(player);
+        }
+
+        for (int i = 0; i < made; i++) {
+            game.undoMove();
+        }
+
+        return Arrays.copyOf(extended, length);
+    }
+
+    /**
+     * Returns whether the list holds the move.
+     *
+     * @param moves The list.
+     * @param move  The move to look for.
+     * @return Whether the move is in the list.
+     */
+    private static boolean contains(MoveList moves, int move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,156 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parameters of Multi-ProbCut. The score of a deep search is predicted from the score of a
+ * shallow search as {@code slope * shallow + intercept}, with a normal error of the given
+ * deviation. When the prediction is far enough outside the window, the deep search is skipped.
+ * The parameters are fitted per game by {@link com.headtrixz.benchmark.ProbCutCalibration} and
+ * stored as CSV in the resources, one check per line.
+ */
+public class ProbCut {
+    /**
+     * A regression from a shallow search to a deep search.
+     *
+     * @param depth        The depth of the deep search.
+     * @param shallowDepth The depth of the shallow search that predicts it.
+     * @param slope        The slope of the regression.
+     * @param intercept    The intercept of the regression.
+     * @param deviation    The standard deviation of the error of the prediction.
+     */
+    public record Check(int depth, int shallowDepth, float slope, float intercept,
+                        float deviation) {
+        /**
+         * Returns the check as a line of the parameter file.
+         *
+         * @return The check as comma separated values.
+         */
+        public String toCsv() {
+            return depth + "," + shallowDepth + "," + slope + "," + intercept + "," + deviation;
+        }
+    }
+
+    private static final Check[] NO_CHECKS = new Check[0];
+    private static final float DEFAULT_THRESHOLD = 1.5f;
+
+    // Close to the end the endgame is searched exactly, a wrong cut costs more than it saves.
+    private static final int MIN_EMPTY_CELLS = 14;
+
+    private final Check[][] checks;
+    private float threshold = DEFAULT_THRESHOLD;
+
+    /**
+     * Creates Multi-ProbCut parameters.
+     *
+     * @param checks The checks, several checks for the same depth are tried shallowest first.
+     */
+    public ProbCut(List<Check> checks) {
+        int maxDepth = 0;
+        for (Check check : checks) {
+            maxDepth = Math.max(maxDepth, check.depth());
+        }
+
+        this.checks = new Check[maxDepth + 1][];
+        for (int depth = 0; depth <= maxDepth; depth++) {
+            int d = depth;
+            this.checks[depth] = checks.stream()
+                .filter(check -> check.depth() == d && check.slope() > 0)
+                .sorted((a, b) -> Integer.compare(a.shallowDepth(), b.shallowDepth()))
+                .toArray(Check[]::new);
+        }
+    }
+
+    /**
+     * Loads the parameters of the game from the resources.
+     *
+     * @param game The game to load the parameters for.
+     * @return The parameters, or null if the game has not been calibrated.
+     */
+    public static ProbCut load(GameModel game) {
+        String name = "/probcut/" + game.getClass().getSimpleName() + ".csv";
+        InputStream stream = ProbCut.class.getResourceAsStream(name);
+        if (stream == null) {
+            return null;
+        }
+
+        try (BufferedReader reader =
+                 new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return new ProbCut(parse(reader.lines().toList()));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read " + name, e);
+        }
+    }
+
+    /**
+     * Parses the lines of a parameter file. Empty lines and lines starting with # are skipped.
+     *
+     * @param lines The lines of the file.
+     * @return The checks in the file.
+     */
+    public static List<Check> parse(List<String> lines) {
+        List<Check> checks = new ArrayList<>();
+        for (String line : lines) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] values = line.split(",");
+            checks.add(new Check(
+                Integer.parseInt(values[0].trim()),
+                Integer.parseInt(values[1].trim()),
+                Float.parseFloat(values[2].trim()),
+                Float.parseFloat(values[3].trim()),
+                Float.parseFloat(values[4].trim())
+            ));
+        }
+
+        return checks;
+    }
+
+    /**
+     * Returns the checks for a deep search, shallowest first.
+     *
+     * @param depth The depth of the deep search.
+     * @return The checks, empty if the depth has not been calibrated.
+     */
+    public Check[] getChecks(int depth) {
+        return depth < checks.length ? checks[depth] : NO_CHECKS;
+    }
+
+    /**
+     * Returns how many standard deviations the prediction has to be outside the window.
+     *
+     * @return The threshold.
+     */
+    public float getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Returns whether ProbCut may be used in a position.
+     *
+     * @param game The game in the position.
+     * @return Whether the position is far enough from the end.
+     */
+    public boolean isApplicable(GameModel game) {
+        return game.getBoard().getEmptyCellCount() >= MIN_EMPTY_CELLS;
+    }
+
+    /**
+     * Sets how many standard deviations the prediction has to be outside the window. A higher
+     * threshold cuts less often and makes fewer mistakes.
+     *
+     * @param threshold The threshold.
+     */
+    public void setThreshold(float threshold) {
+        this.threshold = threshold;
+    }
+}
@@ -0,0 +1,114 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.MoveList;
+
+/**
+ * The moves at the root of the search with the score each got in the last iteration of iterative
+ * deepening. Sorting them after every iteration makes the next iteration start with the best
+ * move, so its window is tight from the start and the other moves are refuted quickly.
+ */
+public class RootMoves {
+    private final MoveList moves;
+    private final float[] scores;
+
+    /**
+     * Creates an empty list of root moves.
+     *
+     * @param capacity The maximum amount of moves the list can hold.
+     */
+    public RootMoves(int capacity) {
+        this.moves = new MoveList(capacity);
+        this.scores = new float[capacity];
+    }
+
+    /**
+     * Fills the list with the valid moves of the player, in the order of the game.
+     *
+     * @param game   The game at the root of the search.
+     * @param player The player to move.
+     */
+    public void fill(GameModel game, int player) {
+        game.getValidMoves(player, moves);
+        resetScores();
+    }
+
+    /**
+     * Returns the move at the index.
+     *
+     * @param index The index of the move.
+     * @return The move at the index.
+     */
+    public int get(int index) {
+        return moves.get(index);
+    }
+
+    /**
+     * Returns the score the move at the index got in the current iteration.
+     *
+     * @param index The index of the move.
+     * @return The score, or Integer.MIN_VALUE if the move has not been searched.
+     */
+    public float getScore(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Marks all moves as not searched, done before every iteration.
+     */
+    public void resetScores() {
+        for (int i = 0; i < moves.size(); i++) {
+            scores[i] = Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Sets the score of the move at the index.
+     *
+     * @param index The index of the move.
+     * @param score The score the move got.
+     */
+    public void setScore(int index, float score) {
+        scores[index] = score;
+    }
+
+    /**
+     * Returns the amount of moves in the list.
+     *
+     * @return The amount of moves in the list.
+     */
+    public int size() {
+        return moves.size();
+    }
+
+    /**
+     * Sorts the moves by their score, best first. Moves with the same score keep their order, so
+     * the best move of an earlier iteration stays ahead of a move that only ties with it.
+     */
+    public void sort() {
+        for (int i = 1; i < moves.size(); i++) {
+            float score = scores[i];
+            int j = i;
+            while (j > 0 && scores[j - 1] < score) {
+                scores[j] = scores[j - 1];
+                moves.swap(j, j - 1);
+                j--;
+            }
+            scores[j] = score;
+        }
+    }
+
+    /**
+     * Moves the move at the index to the front, keeping the order of the other moves.
+     *
+     * @param index The index of the move.
+     */
+    public void moveToFront(int index) {
+        for (int j = index; j > 0; j--) {
+            float score = scores[j];
+            scores[j] = scores[j - 1];
+            scores[j - 1] = score;
+            moves.swap(j, j - 1);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.headtrixz.algorithms;
+
+/**
+ * Thrown from deep inside a search when its time is up or it was stopped, so the search unwinds to
+ * the root in one jump instead of every node checking a flag on the way back. The root catches it
+ * and plays the best move it had finished. It has no stack trace, that would cost more than the
+ * nodes it saves.
+ */
+public class SearchAbortedException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Creates the exception for an aborted search.
+     */
+    public SearchAbortedException() {
+        super("The search was aborted", null, false, false);
+    }
+}
@@ -0,0 +1,120 @@
+package com.headtrixz.algorithms;
+
+/**
+ * Decides when a search has to stop. Reading the clock at every node costs a noticeable part of
+ * the nodes per second, so the deadline is only checked once every so many nodes, against the
+ * monotonic {@link System#nanoTime()} clock. Another thread can stop the search at any time, for
+ * example because the game ended while the player was still thinking.
+ *
+ * <p>A search calls {@link #poll()} at every node, which throws a {@link SearchAbortedException}
+ * once the search has to stop.
+ *
+ * <p>Starting a search does not clear a stop, so a stop that arrives before the search has even
+ * started is not lost. The owner of the search clears it with {@link #reset()} once per move,
+ * before anything can stop that move.
+ */
+public class SearchContext {
+    private static final int DEFAULT_POLL_INTERVAL = 1024;
+
+    private final int pollMask;
+    private volatile boolean stopped = false;
+    private boolean aborted = false;
+    private boolean hasDeadline = false;
+    private long deadline;
+    private long nodes;
+
+    /**
+     * Creates a context that checks the deadline every 1024 nodes.
+     */
+    public SearchContext() {
+        this(DEFAULT_POLL_INTERVAL);
+    }
+
+    /**
+     * Creates a context that checks the deadline every given amount of nodes.
+     *
+     * @param pollInterval How many nodes to search between checks, a power of two.
+     */
+    public SearchContext(int pollInterval) {
+        if (Integer.bitCount(pollInterval) != 1) {
+            throw new IllegalArgumentException("The poll interval must be a power of two");
+        }
+
+        this.pollMask = pollInterval - 1;
+    }
+
+    /**
+     * Starts a search without a deadline, it only ends when it is finished or stopped.
+     */
+    public void start() {
+        aborted = false;
+        hasDeadline = false;
+        nodes = 0;
+    }
+
+    /**
+     * Starts a search that has to end after the given time.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     */
+    public void start(int timeout) {
+        start();
+        hasDeadline = true;
+        deadline = System.nanoTime() + timeout * 1_000_000L;
+    }
+
+    /**
+     * Stops the running search. Can be called from any thread, the search aborts at its next check.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Clears a stop, so the next searches run again.
+     */
+    public void reset() {
+        stopped = false;
+    }
+
+    /**
+     * Counts a node and aborts the search when it has to stop.
+     *
+     * @throws SearchAbortedException When the time is up or the search was stopped.
+     */
+    public void poll() {
+        if ((++nodes & pollMask) == 0) {
+            check();
+        }
+    }
+
+    /**
+     * Aborts the search when it has to stop, without waiting for the next poll interval.
+     *
+     * @throws SearchAbortedException When the time is up or the search was stopped.
+     */
+    public void check() {
+        if (stopped || (hasDeadline && System.nanoTime() - deadline >= 0)) {
+            aborted = true;
+            throw new SearchAbortedException();
+        }
+    }
+
+    /**
+     * Returns whether the search was aborted since it started.
+     *
+     * @return Whether the search was aborted.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Returns the amount of nodes the search has visited since it started.
+     *
+     * @return The amount of nodes.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+}
@@ -0,0 +1,30 @@
+package com.headtrixz.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * The outcome of a search.
+ *
+ * @param move  The best move, or -1 if there is none.
+ * @param score The score of the best move for the player that searched, NaN if the engine does not
+ *              report one.
+ * @param depth The deepest depth that was searched completely.
+ * @param pv    The principal variation: the best move followed by the replies both players are
+ *              expected to play. A pass is written as -1.
+ */
+public record SearchResult(int move, float score, int depth, int[] pv) {
+    /**
+     * Returns the move the opponent is expected to reply with.
+     *
+     * @return The expected reply, or -1 if it is not known.
+     */
+    public int expectedReply() {
+        return pv.length > 1 ? pv[1] : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "move " + move + ", score " + score + ", depth " + depth + ", pv "
+            + Arrays.toString(pv);
+    }
+}
@@ -0,0 +1,177 @@
+package com.headtrixz.algorithms;
+
+import static com.headtrixz.game.GameBoard.EMPTY_CELL;
+import static com.headtrixz.game.GameBoard.PLAYER_ONE;
+import static com.headtrixz.game.GameBoard.PLAYER_TWO;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.TicTacToe;
+import java.util.Arrays;
+
+/**
+ * Plays Tic Tac Toe perfectly by looking the move up in a table. The table holds the best move and
+ * its value for every reachable position and is solved once when the class is loaded.
+ */
+public class TicTacToeSolver implements MiniMax {
+    private static final int CELLS = 9;
+    private static final int STATES = 19683; // 3^9
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+    private static final int[] POWERS = { 1, 3, 9, 27, 81, 243, 729, 2187, 6561 };
+    private static final int[][] LINES = {
+        {0, 1, 2}, {3, 4, 5}, {6, 7, 8}, // ROWS
+        {0, 3, 6}, {1, 4, 7}, {2, 5, 8}, // COLUMNS
+        {0, 4, 8}, {2, 4, 6} // DIAGONALS
+    };
+
+    // Indexed by the base-3 encoding of the board times two, plus one if player two is to move.
+    private static final byte[] BEST_MOVES = new byte[STATES * 2];
+    private static final byte[] VALUES = new byte[STATES * 2];
+
+    static {
+        Arrays.fill(BEST_MOVES, (byte) -1);
+        Arrays.fill(VALUES, UNKNOWN);
+
+        solve(0, PLAYER_ONE);
+        solve(0, PLAYER_TWO);
+    }
+
+    private final GameModel baseGame;
+
+    /**
+     * Plays Tic Tac Toe perfectly.
+     *
+     * @param game The game the AI is currently playing in.
+     */
+    public TicTacToeSolver(GameModel game) {
+        if (!(game instanceof TicTacToe)) {
+            throw new IllegalArgumentException("The solver can only play Tic Tac Toe");
+        }
+
+        this.baseGame = game;
+    }
+
+    /**
+     * Returns the perfect move for the current player.
+     */
+    @Override
+    public int getMove() {
+        int[] cells = baseGame.getBoard().getCells();
+        int code = 0;
+        for (int i = 0; i < CELLS; i++) {
+            code += cells[i] * POWERS[i];
+        }
+
+        return BEST_MOVES[index(code, baseGame.getCurrentPlayer().getId())];
+    }
+
+    /**
+     * Returns the perfect move for the current player, the depth is ignored.
+     *
+     * @param maxDepth The max depth the algorithm should search.
+     */
+    @Override
+    public int getMove(int maxDepth) {
+        return getMove();
+    }
+
+    /**
+     * Returns the perfect move for the current player, the timeout is ignored.
+     *
+     * @param timeout The maximum amount of time in milliseconds to spend searching.
+     * @return The best move of the board.
+     */
+    @Override
+    public int iterativeDeepening(int timeout) {
+        return getMove();
+    }
+
+    /**
+     * Returns whether the player has three in a row.
+     *
+     * @param code   The encoded board.
+     * @param player The player to check.
+     * @return Whether the player has won.
+     */
+    private static boolean hasWon(int code, int player) {
+        for (int[] line : LINES) {
+            if (cell(code, line[0]) == player
+                    && cell(code, line[1]) == player
+                    && cell(code, line[2]) == player) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the value of a cell of the encoded board.
+     *
+     * @param code The encoded board.
+     * @param cell The index of the cell.
+     * @return The player on the cell, or EMPTY_CELL.
+     */
+    private static int cell(int code, int cell) {
+        return code / POWERS[cell] % 3;
+    }
+
+    /**
+     * Returns the index of a position in the table.
+     *
+     * @param code   The encoded board.
+     * @param player The player whose turn it is.
+     * @return The index in the table.
+     */
+    private static int index(int code, int player) {
+        return code * 2 + player - 1;
+    }
+
+    /**
+     * Solves the position with negamax and stores the result in the table. A win is worth more
+     * the sooner it happens.
+     *
+     * @param code   The encoded board.
+     * @param player The player whose turn it is.
+     * @return The value of the position for the player to move.
+     */
+    private static int solve(int code, int player) {
+        int index = index(code, player);
+        if (VALUES[index] != UNKNOWN) {
+            return VALUES[index];
+        }
+
+        int opponent = player == PLAYER_ONE ? PLAYER_TWO : PLAYER_ONE;
+        int empty = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (cell(code, i) == EMPTY_CELL) {
+                empty++;
+            }
+        }
+
+        int value;
+        int bestMove = -1;
+        if (hasWon(code, opponent)) {
+            value = -(empty + 1);
+        } else if (empty == 0) {
+            value = 0;
+        } else {
+            value = Integer.MIN_VALUE;
+            for (int i = 0; i < CELLS; i++) {
+                if (cell(code, i) != EMPTY_CELL) {
+                    continue;
+                }
+
+                int score = -solve(code + player * POWERS[i], opponent);
+                if (score > value) {
+                    value = score;
+                    bestMove = i;
+                }
+            }
+        }
+
+        BEST_MOVES[index] = (byte) bestMove;
+        VALUES[index] = (byte) value;
+
+        return value;
+    }
+}
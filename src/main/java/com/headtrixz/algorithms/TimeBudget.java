@@ -0,0 +1,123 @@
+package com.headtrixz.algorithms;
+
+/**
+ * The time a single move may take. The hard limit is never crossed, the search is aborted there.
+ * The target is the time the move is expected to take: after every finished depth the search asks
+ * the budget whether the next depth is worth starting. The target shrinks while the best move stays
+ * the same from depth to depth, and it grows when the score drops, up to the hard limit.
+ */
+public class TimeBudget {
+    // The next depth takes at least as long as all depths before it together, so it is only
+    // started while at most half of the target has been used.
+    private static final float NEXT_DEPTH_SHARE = 0.5f;
+    private static final float DROP_EXTENSION = 2;
+
+    // How much of the target is used after the best move stayed the same for 0, 1, 2... depths.
+    private static final float[] STABILITY_FACTORS = {1, 0.8f, 0.65f, 0.5f};
+
+    private final long startTime;
+    private final int target;
+    private final int hardLimit;
+    private final float scoreDrop;
+    private final boolean isAdaptive;
+    private int bestMove = -1;
+    private int stableDepths = 0;
+    private float previousScore = Float.NaN;
+    private float lastScore = Float.NaN;
+    private boolean isExtended = false;
+
+    /**
+     * Creates a budget that starts now.
+     *
+     * @param target    The time in milliseconds the move is expected to take.
+     * @param hardLimit The time in milliseconds the move may take at most.
+     * @param scoreDrop How far the score has to drop to extend the target.
+     */
+    public TimeBudget(int target, int hardLimit, float scoreDrop) {
+        this(target, hardLimit, scoreDrop, true);
+    }
+
+    /**
+     * Creates a budget that starts now.
+     *
+     * @param target     The time in milliseconds the move is expected to take.
+     * @param hardLimit  The time in milliseconds the move may take at most.
+     * @param scoreDrop  How far the score has to drop to extend the target.
+     * @param isAdaptive Whether the search may stop before the hard limit.
+     */
+    private TimeBudget(int target, int hardLimit, float scoreDrop, boolean isAdaptive) {
+        this.startTime = System.nanoTime();
+        this.target = Math.min(target, hardLimit);
+        this.hardLimit = hardLimit;
+        this.scoreDrop = scoreDrop;
+        this.isAdaptive = isAdaptive;
+    }
+
+    /**
+     * Returns a budget that searches until the time is up, like a plain timeout.
+     *
+     * @param timeout The time in milliseconds the move takes.
+     * @return The budget.
+     */
+    public static TimeBudget fixed(int timeout) {
+        return new TimeBudget(timeout, timeout, Float.POSITIVE_INFINITY, false);
+    }
+
+    /**
+     * Returns the time that has passed since the budget was created.
+     *
+     * @return The time in milliseconds.
+     */
+    public int getElapsed() {
+        return (int) ((System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * Returns the time that is left until the hard limit.
+     *
+     * @return The time in milliseconds, 0 when it is up.
+     */
+    public int getTimeLeft() {
+        return Math.max(0, hardLimit - getElapsed());
+    }
+
+    /**
+     * Returns the time that is left until the target, for engines that do not search in depths.
+     *
+     * @return The time in milliseconds, 0 when it is up.
+     */
+    public int getTargetTimeLeft() {
+        return Math.max(0, target - getElapsed());
+    }
+
+    /**
+     * Tells the budget a depth was finished and returns whether the search should stop.
+     *
+     * @param move  The best move of the depth.
+     * @param score The score of the best move.
+     * @return Whether the next depth is not worth starting.
+     */
+    public boolean shouldStop(int move, float score) {
+        if (!isAdaptive) {
+            return false;
+        }
+
+        stableDepths = move == bestMove ? stableDepths + 1 : 0;
+        bestMove = move;
+
+        // Scores swing between odd and even depths, so they are compared two depths apart.
+        if (score < previousScore - scoreDrop) {
+            isExtended = true;
+        }
+        previousScore = lastScore;
+        lastScore = score;
+
+        float factor = STABILITY_FACTORS[Math.min(stableDepths, STABILITY_FACTORS.length - 1)];
+        if (isExtended) {
+            factor *= DROP_EXTENSION;
+        }
+
+        float allowed = Math.min(hardLimit, target * factor);
+        return getElapsed() >= allowed * NEXT_DEPTH_SHARE;
+    }
+}
@@ -0,0 +1,131 @@
+package com.headtrixz.algorithms;
+
+import com.headtrixz.game.GameModel;
+import com.headtrixz.game.Othello;
+
+/**
+ * Divides the time of a player over its moves. Every move may take the move limit minus a safety
+ * margin for the network, and is expected to take only part of that, so the search has room to
+ * extend a move that is in trouble. With a limit for the whole game, the time that is left is
+ * divided over the moves that are left as well. In Othello the middle game gets more time than
+ * the opening, where the searches agree quickly and the positions are alike.
+ */
+public class TimeManager {
+    private static final int DEFAULT_MOVE_TIME = 10000;
+    private static final int DEFAULT_MARGIN = 300;
+    private static final float DEFAULT_SCORE_DROP = 1;
+
+    // The share of the hard limit a move is expected to take, and how far past its share a move
+    // may go when there is a limit for the whole game.
+    private static final float TARGET_SHARE = 0.5f;
+    private static final int MAX_SHARES = 3;
+
+    // The phases of Othello, by the amount of empty cells.
+    private static final int OPENING_EMPTIES = 44;
+    private static final int ENDGAME_EMPTIES = 20;
+    private static final float OPENING_WEIGHT = 0.6f;
+    private static final float MIDDLE_GAME_WEIGHT = 1.2f;
+    private static final float ENDGAME_WEIGHT = 1;
+
+    private final GameModel game;
+    private int moveTime = DEFAULT_MOVE_TIME;
+    private int margin = DEFAULT_MARGIN;
+    private int totalTime = 0;
+    private int remainingTime = 0;
+    private float scoreDrop = DEFAULT_SCORE_DROP;
+
+    /**
+     * Divides the time of a player in a game.
+     *
+     * @param game The game the player is playing in.
+     */
+    public TimeManager(GameModel game) {
+        this.game = game;
+    }
+
+    /**
+     * Returns the budget for the move the player has to make now.
+     *
+     * @return The budget, it starts right away.
+     */
+    public TimeBudget startMove() {
+        int empties = game.getBoard().getEmptyCellCount();
+        float weight = getPhaseWeight(empties);
+
+        int hardLimit = Math.max(0, moveTime - margin);
+        int target = (int) (hardLimit * TARGET_SHARE * weight);
+        if (totalTime > 0) {
+            // Every move fills a cell, so the player has about half of the empties left to play.
+            int movesLeft = Math.max(1, (empties + 1) / 2);
+            int available = Math.max(0, remainingTime - margin);
+            target = Math.min(target, (int) (available / movesLeft * weight));
+            hardLimit = Math.min(hardLimit, MAX_SHARES * target);
+        }
+
+        return new TimeBudget(target, hardLimit, scoreDrop);
+    }
+
+    /**
+     * Takes the time a move used from the time that is left for the game.
+     *
+     * @param budget The budget of the move.
+     */
+    public void endMove(TimeBudget budget) {
+        remainingTime -= budget.getElapsed();
+    }
+
+    /**
+     * Sets the time limit of every move.
+     *
+     * @param moveTime The time in milliseconds.
+     */
+    public void setMoveTime(int moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * Sets the time limit of the whole game, the time that is left starts over.
+     *
+     * @param totalTime The time in milliseconds, 0 for no limit.
+     */
+    public void setTotalTime(int totalTime) {
+        this.totalTime = totalTime;
+        this.remainingTime = totalTime;
+    }
+
+    /**
+     * Sets the time that is kept free of every limit, for the move to reach the server.
+     *
+     * @param margin The time in milliseconds.
+     */
+    public void setMargin(int margin) {
+        this.margin = margin;
+    }
+
+    /**
+     * Sets how far the score has to drop before a move gets extra time.
+     *
+     * @param scoreDrop The drop in the score of the game.
+     */
+    public void setScoreDrop(float scoreDrop) {
+        this.scoreDrop = scoreDrop;
+    }
+
+    /**
+     * Returns how much time a move gets compared to the other moves of the game.
+     *
+     * @param empties The amount of empty cells.
+     * @return The weight of the move.
+     */
+    private float getPhaseWeight(int empties) {
+        if (!(game instanceof Othello)) {
+            return 1;
+        }
+
+        if (empties > OPENING_EMPTIES) {
+            return OPENING_WEIGHT;
+        }
+
+        return empties > ENDGAME_EMPTIES ? MIDDLE_GAME_WEIGHT : ENDGAME_WEIGHT;
+    }
+}
@@ -9,15 +9,35 @@ import com.headtrixz.game.players.Player;
  * @param value The score of the boarded used as key in the table.
  * @param depth The depth the entry was created at.
  * @param flag  The flag of the entry.
+ * @param move  The best move found in the position, or -1 if it is not known.
  */
-public record TranspositionEntry(float value, int depth, Flags flag) {
+public record TranspositionEntry(float value, int depth, Flags flag, int move) {
     enum Flags {
         EXACT,
         UPPER_BOUND,
         LOWER_BOUND
     }
 
-    public static int createHash(GameBoard gameBoard, Player player) {
-        return (gameBoard.hashCode() * 10) + player.getId();
+    /**
+     * Record to be stored in the transposition table, without a best move.
+     *
+     * @param value The score of the boarded used as key in the table.
+     * @param depth The depth the entry was created at.
+     * @param flag  The flag of the entry.
+     */
+    public TranspositionEntry(float value, int depth, Flags flag) {
+        this(value, depth, flag, -1);
+    }
+
+    /**
+     * Returns the key of a position in the transposition table: the Zobrist hash of the board
+     * combined with the player to move.
+     *
+     * @param gameBoard The board of the position.
+     * @param player    The player whose turn it is.
+     * @return The key of the position.
+     */
+    public static long createHash(GameBoard gameBoard, Player player) {
+        return gameBoard.getHash(player.getId());
     }
 }
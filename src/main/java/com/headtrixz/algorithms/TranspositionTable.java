@@ -0,0 +1,84 @@
+package com.headtrixz.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * A transposition table with a fixed number of slots, so it does not grow during a game. A
+ * position can only be stored in the slot its key points to. When two positions want the same
+ * slot, the entry from an older search or with the smaller depth is replaced.
+ */
+public class TranspositionTable {
+    private final long[] keys;
+    private final TranspositionEntry[] entries;
+    private final int[] ages;
+    private final int mask;
+    private int age = 0;
+
+    /**
+     * A transposition table with a fixed number of slots.
+     *
+     * @param bits The number of slots as a power of two, the table has 2^bits slots.
+     */
+    public TranspositionTable(int bits) {
+        this.keys = new long[1 << bits];
+        this.entries = new TranspositionEntry[1 << bits];
+        this.ages = new int[1 << bits];
+        this.mask = (1 << bits) - 1;
+    }
+
+    /**
+     * Removes all entries from the table.
+     */
+    public void clear() {
+        Arrays.fill(entries, null);
+    }
+
+    /**
+     * Returns the entry of the position.
+     *
+     * @param key The key of the position.
+     * @return The entry, or null if the position is not in the table.
+     */
+    public TranspositionEntry get(long key) {
+        int index = getIndex(key);
+        return entries[index] != null && keys[index] == key ? entries[index] : null;
+    }
+
+    /**
+     * Marks the start of a new search. Entries of earlier searches are still used, but are the
+     * first to be replaced.
+     */
+    public void newSearch() {
+        age++;
+    }
+
+    /**
+     * Stores the entry of the position, unless the slot holds a deeper entry of another position
+     * from the current search.
+     *
+     * @param key   The key of the position.
+     * @param entry The entry to store.
+     */
+    public void put(long key, TranspositionEntry entry) {
+        int index = getIndex(key);
+        TranspositionEntry old = entries[index];
+        if (old != null && keys[index] != key && ages[index] == age
+                && old.depth() > entry.depth()) {
+            return;
+        }
+
+        keys[index] = key;
+        entries[index] = entry;
+        ages[index] = age;
+    }
+
+    /**
+     * Returns the slot of the position, folding the high bits of the key into the index.
+     *
+     * @param key The key of the position.
+     * @return The index of the slot.
+     */
+    private int getIndex(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
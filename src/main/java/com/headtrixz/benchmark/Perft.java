@@ -0,0 +1,189 @@
+package com.headtrixz.benchmark;
+
+import com.headtrixz.game.GameBoard;
+import com.headtrixz.game.MoveList;
+import com.headtrixz.game.Othello;
+
+/**
+ * Counts the leaf nodes of the Othello game tree to a fixed depth (perft). The counts are checked
+ * against known values, which makes it a correctness check and a throughput benchmark for the
+ * move generator at the same time.
+ */
+public class Perft {
+    /**
+     * A position to run perft on.
+     *
+     * @param name     The name to print.
+     * @param cells    The board, one character per cell: X for player one, O for player two.
+     * @param player   The player to move.
+     * @param expected The known leaf counts, starting at depth 1.
+     */
+    private record Position(String name, String cells, int player, long[] expected) { }
+
+    private static final Position[] POSITIONS = {
+        new Position(
+            "start position",
+            "---------------------------OX------XO---------------------------",
+            GameBoard.PLAYER_ONE,
+            new long[] {
+                4L, 12L, 56L, 244L, 1396L, 8200L, 55092L, 390216L, 3005288L, 24571284L,
+                212258800L, 1939886636L
+            }
+        ),
+        new Position(
+            "opening",
+            "-------------O-------O-----OXO--XXOXOOO-XXXO----XXXOO---X--O-O--",
+            GameBoard.PLAYER_ONE,
+            new long[] { 11L, 71L, 801L, 5545L, 64705L, 502852L, 5966265L }
+        ),
+        new Position(
+            "midgame",
+            "-O------XOX----O-OX-X-O--OXXXO--XOXOOX--XXOOO-X-XXXOO--X-XO-----",
+            GameBoard.PLAYER_ONE,
+            new long[] { 11L, 117L, 1226L, 12372L, 129040L, 1279627L, 13312979L }
+        ),
+        new Position(
+            "endgame",
+            "-OOOOO-X-OXXXXX-OOOOXXXX-XOXXXXX-XXOXXXX--X-OOOX---OOOOX---O-OOO",
+            GameBoard.PLAYER_ONE,
+            new long[] { 7L, 64L, 430L, 3173L, 20342L, 132463L, 780332L, 4419157L }
+        ),
+        new Position(
+            "pass",
+            "OOO----XXOOOO--XOXOOOOOXOOXOOOOXOOXXXXOXOOXOOOOXOOOXOOXXO-XXXXXX",
+            GameBoard.PLAYER_TWO,
+            new long[] { 1L, 6L, 17L, 73L, 186L, 517L, 758L, 916L, 922L, 922L }
+        ),
+    };
+
+    /**
+     * Run perft on the start position and every test position, up to the depth the counts are
+     * known for.
+     *
+     * @param maxDepth the depth to count up to.
+     */
+    public static void perft(int maxDepth) {
+        System.out.println("Starting perft");
+        boolean passed = true;
+
+        for (Position position : POSITIONS) {
+            System.out.printf("Perft %s\n", position.name());
+            Othello othello = createGame(position.cells());
+
+            int lastDepth = Math.min(maxDepth, position.expected().length);
+            for (int depth = 1; depth <= lastDepth; depth++) {
+                passed &= run(othello, position, depth, false);
+                passed &= run(othello, position, depth, true);
+            }
+        }
+
+        System.out.println(passed ? "All counts are correct" : "Some counts are WRONG");
+    }
+
+    /**
+     * Counts the leaves of the game tree below the position of the game.
+     *
+     * @param game   The game to count in, it is left unchanged.
+     * @param depth  The depth to count to.
+     * @param player The player to move.
+     * @param bulk   Whether to count the moves at the last ply instead of playing them.
+     * @return The amount of leaves.
+     */
+    public static long count(Othello game, int depth, int player, boolean bulk) {
+        MoveList[] moveLists = new MoveList[depth + 1];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList(game.getBoard().getCellCount());
+        }
+
+        return count(game, moveLists, depth, player, false, bulk);
+    }
+
+    /**
+     * Counts the leaves of the game tree. A pass counts as a move, a finished game as a leaf.
+     *
+     * @param game      The game to count in.
+     * @param moveLists A move list per depth.
+     * @param depth     The depth left to count.
+     * @param player    The player to move.
+     * @param passed    Whether the previous player had to pass.
+     * @param bulk      Whether to count the moves at the last ply instead of playing them.
+     * @return The amount of leaves.
+     */
+    private static long count(
+        Othello game,
+        MoveList[] moveLists,
+        int depth,
+        int player,
+        boolean passed,
+        boolean bulk
+    ) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        // Passing and a finished game are both a single leaf at the last ply.
+        if (bulk && depth == 1) {
+            return Math.max(1, Long.bitCount(game.getMoveMask(player)));
+        }
+
+        MoveList moves = moveLists[depth];
+        game.getValidMoves(player, moves);
+        if (moves.isEmpty()) {
+            return passed ? 1 : count(game, moveLists, depth - 1, player % 2 + 1, true, bulk);
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            game.makeMove(moves.get(i), player);
+            nodes += count(game, moveLists, depth - 1, player % 2 + 1, false, bulk);
+            game.undoMove();
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Creates a game with the given stones on the board.
+     *
+     * @param cells The board, one character per cell.
+     * @return The game.
+     */
+    private static Othello createGame(String cells) {
+        int[] board = new int[cells.length()];
+        for (int i = 0; i < board.length; i++) {
+            board[i] = switch (cells.charAt(i)) {
+                case 'X' -> GameBoard.PLAYER_ONE;
+                case 'O' -> GameBoard.PLAYER_TWO;
+                default -> GameBoard.EMPTY_CELL;
+            };
+        }
+
+        Othello othello = new Othello();
+        othello.setCells(board);
+        return othello;
+    }
+
+    /**
+     * Runs perft once and prints the count, the time and the speed.
+     *
+     * @param othello  The game to count in.
+     * @param position The position the game is in.
+     * @param depth    The depth to count to.
+     * @param bulk     Whether to use bulk counting at the last ply.
+     * @return Whether the count matches the known count.
+     */
+    private static boolean run(Othello othello, Position position, int depth, boolean bulk) {
+        long startTime = System.nanoTime();
+        long nodes = count(othello, depth, position.player(), bulk);
+        long endTime = System.nanoTime();
+
+        double seconds = (endTime - startTime) / 1e9;
+        boolean correct = position.expected()[depth - 1] == nodes;
+
+        System.out.printf("Depth %d%s: %d nodes in %f milliseconds (%.0f nodes/s) %s\n",
+                depth, bulk ? " (bulk)" : "", nodes, seconds * 1000, nodes / seconds,
+                correct ? "OK" : "WRONG");
+
+        return correct;
+    }
+}
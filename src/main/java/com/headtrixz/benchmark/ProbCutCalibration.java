@@ -0,0 +1,205 @@
+package com.headtrixz.benchmark;
+
+import com.headtrixz.algorithms.MiniMaxPvs;
+import com.headtrixz.algorithms.ProbCut;
+import com.headtrixz.game.GameBoard;
+import com.headtrixz.game.Othello;
+import com.headtrixz.game.helpers.BenchmarkHelper;
+import com.headtrixz.game.players.HackyAIPlayer;
+import com.headtrixz.game.players.Player;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fits the Multi-ProbCut parameters for Othello. Every position is searched to every depth, then a
+ * line is fitted through the pairs of shallow and deep scores. The output is the parameter file,
+ * to be saved as src/main/resources/probcut/Othello.csv.
+ */
+public class ProbCutCalibration {
+    private static final int MIN_DEPTH = 3;
+    private static final int GENERATED_POSITIONS = 200;
+
+    // Won or lost positions score far outside the evaluation, they would wreck the regression.
+    private static final float MAX_SCORE = 100;
+
+    /**
+     * Runs the calibration and prints the parameter file.
+     *
+     * @param maxDepth The deepest search to calibrate.
+     * @param file     A file with one position per line: 64 cells (X, O or -), a space and the
+     *                 player to move (X or O). When null, positions from random games are used.
+     */
+    public static void calibrate(int maxDepth, String file) {
+        List<String> positions = file == null ? generatePositions() : readPositions(file);
+
+        Othello othello = new Othello();
+        Player playerOne = new HackyAIPlayer(othello, "X");
+        Player playerTwo = new HackyAIPlayer(othello, "O");
+        BenchmarkHelper helper = new BenchmarkHelper(null, othello);
+        othello.initialize(helper, playerOne, playerTwo);
+
+        // scores[position][depth]
+        List<float[]> scores = new ArrayList<>();
+        for (String position : positions) {
+            othello.setCells(parseCells(position));
+            othello.setCurrentPlayer(position.endsWith("O") ? playerTwo : playerOne);
+            if (!othello.hasValidMoves(othello.getCurrentPlayer().getId())) {
+                continue;
+            }
+
+            MiniMaxPvs search = new MiniMaxPvs(othello);
+            search.setProbCut(null);
+
+            float[] positionScores = new float[maxDepth + 1];
+            for (int depth = 1; depth <= maxDepth; depth++) {
+                positionScores[depth] = search.getScore(depth);
+            }
+            scores.add(positionScores);
+        }
+
+        System.out.printf("# Multi-ProbCut parameters from %d positions\n", scores.size());
+        System.out.println("# depth,shallow depth,slope,intercept,deviation");
+        for (int depth = MIN_DEPTH; depth <= maxDepth; depth++) {
+            // Shallow depths of the same parity, Othello scores swing between odd and even.
+            for (int shallow = depth - 4; shallow <= depth - 2; shallow += 2) {
+                if (shallow >= 1) {
+                    System.out.println(fit(scores, depth, shallow).toCsv());
+                }
+            }
+        }
+
+        helper.forfeit();
+    }
+
+    /**
+     * Fits the score of the deep search as a line through the score of the shallow search.
+     *
+     * @param scores  The scores of every position at every depth.
+     * @param depth   The depth of the deep search.
+     * @param shallow The depth of the shallow search.
+     * @return The check with the fitted parameters.
+     */
+    private static ProbCut.Check fit(List<float[]> scores, int depth, int shallow) {
+        double n = 0;
+        double sumX = 0;
+        double sumY = 0;
+        double sumXx = 0;
+        double sumXy = 0;
+        for (float[] positionScores : scores) {
+            float x = positionScores[shallow];
+            float y = positionScores[depth];
+            if (Math.abs(x) < MAX_SCORE && Math.abs(y) < MAX_SCORE) {
+                n++;
+                sumX += x;
+                sumY += y;
+                sumXx += x * x;
+                sumXy += x * y;
+            }
+        }
+
+        double slope = (n * sumXy - sumX * sumY) / (n * sumXx - sumX * sumX);
+        double intercept = (sumY - slope * sumX) / n;
+
+        double sumSquaredError = 0;
+        for (float[] positionScores : scores) {
+            float x = positionScores[shallow];
+            float y = positionScores[depth];
+            if (Math.abs(x) < MAX_SCORE && Math.abs(y) < MAX_SCORE) {
+                double error = y - (slope * x + intercept);
+                sumSquaredError += error * error;
+            }
+        }
+
+        double deviation = Math.sqrt(sumSquaredError / (n - 2));
+        return new ProbCut.Check(depth, shallow, (float) slope, (float) intercept,
+            (float) deviation);
+    }
+
+    /**
+     * Plays random games and takes one midgame position from each.
+     *
+     * @return The positions.
+     */
+    private static List<String> generatePositions() {
+        Random random = new Random(0);
+        List<String> positions = new ArrayList<>();
+        while (positions.size() < GENERATED_POSITIONS) {
+            Othello othello = new Othello();
+            int player = GameBoard.PLAYER_ONE;
+            int plies = 10 + random.nextInt(36);
+
+            for (int ply = 0; ply < plies; ply++) {
+                List<Integer> moves = othello.getValidMoves(player);
+                if (!moves.isEmpty()) {
+                    othello.setMove(moves.get(random.nextInt(moves.size())), player);
+                }
+                player = player % 2 + 1;
+            }
+
+            if (othello.hasValidMoves(player)) {
+                positions.add(formatPosition(othello.getBoard(), player));
+            }
+        }
+
+        return positions;
+    }
+
+    /**
+     * Writes a position in the format of the position file.
+     *
+     * @param board  The board.
+     * @param player The player to move.
+     * @return The position.
+     */
+    private static String formatPosition(GameBoard board, int player) {
+        StringBuilder builder = new StringBuilder();
+        for (int cell : board.getCells()) {
+            builder.append(switch (cell) {
+                case GameBoard.PLAYER_ONE -> 'X';
+                case GameBoard.PLAYER_TWO -> 'O';
+                default -> '-';
+            });
+        }
+
+        return builder.append(player == GameBoard.PLAYER_ONE ? " X" : " O").toString();
+    }
+
+    /**
+     * Reads the board of a position.
+     *
+     * @param position The position.
+     * @return The cells of the board.
+     */
+    private static int[] parseCells(String position) {
+        int[] cells = new int[position.indexOf(' ')];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = switch (position.charAt(i)) {
+                case 'X' -> GameBoard.PLAYER_ONE;
+                case 'O' -> GameBoard.PLAYER_TWO;
+                default -> GameBoard.EMPTY_CELL;
+            };
+        }
+
+        return cells;
+    }
+
+    /**
+     * Reads the positions from a file, skipping empty lines and lines starting with #.
+     *
+     * @param file The path of the file.
+     * @return The positions.
+     */
+    private static List<String> readPositions(String file) {
+        try {
+            return Files.readAllLines(Path.of(file)).stream()
+                .filter(line -> !line.isBlank() && !line.startsWith("#"))
+                .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read " + file, e);
+        }
+    }
+}
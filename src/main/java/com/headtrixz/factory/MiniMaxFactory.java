@@ -3,8 +3,12 @@ package com.headtrixz.factory;
 import com.headtrixz.algorithms.BasicMiniMax;
 import com.headtrixz.algorithms.MiniMax;
 import com.headtrixz.algorithms.MiniMaxAlphaBeta;
+import com.headtrixz.algorithms.MiniMaxMtdf;
 import com.headtrixz.algorithms.MiniMaxOptimized;
+import com.headtrixz.algorithms.MiniMaxPvs;
 import com.headtrixz.algorithms.MiniMaxTransposition;
+import com.headtrixz.algorithms.MonteCarloTreeSearch;
+import com.headtrixz.algorithms.TicTacToeSolver;
 import com.headtrixz.game.GameModel;
 
 /**
@@ -18,7 +22,11 @@ public class MiniMaxFactory {
         MiniMax,
         MiniMaxAlphaBeta,
         MiniMaxTransposition,
-        MiniMaxOptimized
+        MiniMaxOptimized,
+        MiniMaxPvs,
+        MiniMaxMtdf,
+        MonteCarloTreeSearch,
+        TicTacToeSolver
     }
 
     /**
@@ -34,6 +42,10 @@ public class MiniMaxFactory {
             case MiniMaxAlphaBeta -> new MiniMaxAlphaBeta(game);
             case MiniMaxTransposition -> new MiniMaxTransposition(game);
             case MiniMaxOptimized -> new MiniMaxOptimized(game);
+            case MiniMaxPvs -> new MiniMaxPvs(game);
+            case MiniMaxMtdf -> new MiniMaxMtdf(game);
+            case MonteCarloTreeSearch -> new MonteCarloTreeSearch(game);
+            case TicTacToeSolver -> new TicTacToeSolver(game);
             default -> throw new RuntimeException("Algorithm is not implemented");
         };
     }
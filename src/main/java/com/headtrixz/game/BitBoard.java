@@ -0,0 +1,225 @@
+package com.headtrixz.game;
+
+import java.util.stream.IntStream;
+
+/**
+ * Move generation for an 8x8 board stored as two 64-bit masks, one per player. Bit {@code i}
+ * represents the cell at index {@code i} of the {@link GameBoard}.
+ */
+public final class BitBoard {
+    private static final long NOT_FIRST_COLUMN = 0xfefefefefefefefeL;
+    private static final long NOT_LAST_COLUMN = 0x7f7f7f7f7f7f7f7fL;
+    private static final long FIRST_COLUMN = 0x0101010101010101L;
+    private static final long LAST_COLUMN = 0x8080808080808080L;
+    private static final long FIRST_ROW = 0x00000000000000ffL;
+    private static final long LAST_ROW = 0xff00000000000000L;
+    private static final long EDGES = FIRST_COLUMN | LAST_COLUMN | FIRST_ROW | LAST_ROW;
+    private static final int DIRECTIONS = 8;
+    private static final int CELLS = 64;
+
+    // For every cell and direction, the cells from its neighbour to the edge of the board.
+    private static final long[][] RAYS = new long[CELLS][DIRECTIONS];
+
+    // Every diagonal and anti-diagonal of the board, the first direction of each pair of
+    // opposite directions points along them.
+    private static final int[][] LINE_DIRECTIONS = { {6, 5}, {7, 4} };
+    private static final long[][] LINES = new long[LINE_DIRECTIONS.length][];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                long ray = 0;
+                long bit = shift(1L << cell, direction);
+                while (bit != 0) {
+                    ray |= bit;
+                    bit = shift(bit, direction);
+                }
+
+                RAYS[cell][direction] = ray;
+            }
+        }
+
+        for (int i = 0; i < LINE_DIRECTIONS.length; i++) {
+            int forward = LINE_DIRECTIONS[i][0];
+            int backward = LINE_DIRECTIONS[i][1];
+
+            // A line starts at every cell that has no neighbour behind it.
+            LINES[i] = IntStream.range(0, CELLS)
+                .filter(cell -> shift(1L << cell, backward) == 0)
+                .mapToLong(cell -> 1L << cell | RAYS[cell][forward])
+                .toArray();
+        }
+    }
+
+    private BitBoard() { }
+
+    /**
+     * Returns the cells the player can legally play as a mask.
+     *
+     * @param player The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @return A mask with a bit set for every legal move.
+     */
+    public static long getMoves(long player, long opponent) {
+        long empty = ~(player | opponent);
+        long moves = 0;
+
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            // An opponent line is at most six discs long on an 8x8 board.
+            long line = shift(player, direction) & opponent;
+            line |= shift(line, direction) & opponent;
+            line |= shift(line, direction) & opponent;
+            line |= shift(line, direction) & opponent;
+            line |= shift(line, direction) & opponent;
+            line |= shift(line, direction) & opponent;
+
+            moves |= shift(line, direction) & empty;
+        }
+
+        return moves;
+    }
+
+    /**
+     * Returns the discs that get flipped when the player plays the move.
+     *
+     * @param player The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param move The index of the cell the player plays.
+     * @return A mask with a bit set for every disc that gets flipped.
+     */
+    public static long getFlips(long player, long opponent, int move) {
+        long flips = 0;
+
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            long ray = RAYS[move][direction];
+
+            // The first cell along the ray that is not the opponent's closes the line.
+            long blockers = ray & ~opponent;
+            if (blockers == 0) {
+                continue;
+            }
+
+            int end = isAscending(direction)
+                    ? Long.numberOfTrailingZeros(blockers)
+                    : 63 - Long.numberOfLeadingZeros(blockers);
+
+            long endBit = 1L << end;
+            if ((player & endBit) != 0) {
+                flips |= ray & ~(RAYS[end][direction] | endBit);
+            }
+        }
+
+        return flips;
+    }
+
+    /**
+     * Returns the discs of the player that can never be flipped again. A disc cannot be flipped
+     * along a line when the line is full, or when one of its neighbours on the line is the edge of
+     * the board or a stable disc of the player. A disc is stable when that holds for all four
+     * lines through it. Starting from the corners, this is repeated until no disc is added. Not
+     * every stable disc is found, but every disc that is found is stable.
+     *
+     * @param player The discs of the player.
+     * @param opponent The discs of the opponent.
+     * @return A mask with a bit set for every stable disc of the player.
+     */
+    public static long getStableDiscs(long player, long opponent) {
+        long filled = player | opponent;
+        long horizontal = getFullRows(filled) | FIRST_COLUMN | LAST_COLUMN;
+        long vertical = getFullColumns(filled) | FIRST_ROW | LAST_ROW;
+        long diagonal = getFullLines(filled, 0) | EDGES;
+        long antiDiagonal = getFullLines(filled, 1) | EDGES;
+
+        long stable = 0;
+        while (true) {
+            long next = player
+                & (horizontal | shift(stable, 2) | shift(stable, 3))
+                & (vertical | shift(stable, 0) | shift(stable, 1))
+                & (diagonal | shift(stable, 5) | shift(stable, 6))
+                & (antiDiagonal | shift(stable, 4) | shift(stable, 7));
+
+            if (next == stable) {
+                return stable;
+            }
+
+            stable = next;
+        }
+    }
+
+    /**
+     * Returns the cells of all full rows. The row is folded onto its first cell with three
+     * shifts, then the bit of every full row is spread over the whole row again.
+     *
+     * @param filled The cells that hold a disc.
+     * @return A mask with the cells of every full row.
+     */
+    static long getFullRows(long filled) {
+        long full = filled & filled >>> 4;
+        full &= full >>> 2;
+        full &= full >>> 1;
+        return (full & FIRST_COLUMN) * FIRST_ROW;
+    }
+
+    /**
+     * Returns the cells of all full columns, the same way as getFullRows.
+     *
+     * @param filled The cells that hold a disc.
+     * @return A mask with the cells of every full column.
+     */
+    static long getFullColumns(long filled) {
+        long full = filled & filled >>> 32;
+        full &= full >>> 16;
+        full &= full >>> 8;
+        return (full & FIRST_ROW) * FIRST_COLUMN;
+    }
+
+    /**
+     * Returns the cells of all full lines in one orientation.
+     *
+     * @param filled The cells that hold a disc.
+     * @param orientation The orientation: diagonals or anti-diagonals.
+     * @return A mask with the cells of every full line.
+     */
+    static long getFullLines(long filled, int orientation) {
+        long full = 0;
+        for (long line : LINES[orientation]) {
+            if ((filled & line) == line) {
+                full |= line;
+            }
+        }
+
+        return full;
+    }
+
+    /**
+     * Returns whether the cell index goes up when moving in the direction.
+     *
+     * @param direction The direction to check.
+     * @return Whether the direction goes towards higher cell indexes.
+     */
+    private static boolean isAscending(int direction) {
+        return direction == 1 || direction == 2 || direction == 6 || direction == 7;
+    }
+
+    /**
+     * Moves every bit of the mask one cell in the given direction, dropping bits that would wrap
+     * around the edge of the board.
+     *
+     * @param bits The mask to shift.
+     * @param direction The direction to shift in.
+     * @return The shifted mask.
+     */
+    private static long shift(long bits, int direction) {
+        return switch (direction) {
+            case 0 -> bits >>> 8; // UP
+            case 1 -> bits << 8; // DOWN
+            case 2 -> (bits << 1) & NOT_FIRST_COLUMN; // RIGHT
+            case 3 -> (bits >>> 1) & NOT_LAST_COLUMN; // LEFT
+            case 4 -> (bits >>> 7) & NOT_FIRST_COLUMN; // UP RIGHT
+            case 5 -> (bits >>> 9) & NOT_LAST_COLUMN; // UP LEFT
+            case 6 -> (bits << 9) & NOT_FIRST_COLUMN; // DOWN RIGHT
+            case 7 -> (bits << 7) & NOT_LAST_COLUMN; // DOWN LEFT
+            default -> throw new IllegalArgumentException("Invalid direction: " + direction);
+        };
+    }
+}
@@ -1,6 +1,7 @@
 package com.headtrixz.game;
 
 import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * Represents a game board.
@@ -10,7 +11,25 @@ public class GameBoard {
     public static final int PLAYER_ONE = 1;
     public static final int PLAYER_TWO = 2;
 
+    // Zobrist keys, one per cell and player, for boards of up to 8x8. Empty cells hash to 0.
+    private static final int MAX_CELLS = 64;
+    private static final long[] CELL_KEYS = new long[MAX_CELLS * 3];
+    private static final long[] SIDE_KEYS = new long[3];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x15A_2022L);
+        for (int cell = 0; cell < MAX_CELLS; cell++) {
+            CELL_KEYS[cell * 3 + PLAYER_ONE] = random.nextLong();
+            CELL_KEYS[cell * 3 + PLAYER_TWO] = random.nextLong();
+        }
+
+        SIDE_KEYS[PLAYER_ONE] = random.nextLong();
+        SIDE_KEYS[PLAYER_TWO] = random.nextLong();
+    }
+
     private int[] cells;
+    private int emptyCells;
+    private long hash;
     private final int size;
 
     /**
@@ -19,6 +38,10 @@ public class GameBoard {
      * @param size The size of the game board.
      */
     public GameBoard(int size) {
+        if (size * size > MAX_CELLS) {
+            throw new IllegalArgumentException("Board size not supported: " + size);
+        }
+
         this.size = size;
         this.cells = new int[size * size];
         clear();
@@ -29,6 +52,8 @@ public class GameBoard {
      */
     public void clear() {
         Arrays.fill(cells, EMPTY_CELL);
+        emptyCells = cells.length;
+        hash = 0;
     }
 
     /**
@@ -40,10 +65,23 @@ public class GameBoard {
     public GameBoard clone() {
         GameBoard board = new GameBoard(size);
         board.cells = cells.clone();
+        board.emptyCells = emptyCells;
+        board.hash = hash;
 
         return board;
     }
 
+    /**
+     * Copies the cells of another board of the same size into this board.
+     *
+     * @param other The board to copy.
+     */
+    public void copyFrom(GameBoard other) {
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        emptyCells = other.emptyCells;
+        hash = other.hash;
+    }
+
     /**
      * Returns the number of cells.
      *
@@ -62,6 +100,58 @@ public class GameBoard {
         return cells;
     }
 
+    /**
+     * Returns a hash of the board that is the same for every rotation and reflection of it,
+     * combined with the player to move. It is the smallest Zobrist hash of the eight symmetries.
+     *
+     * @param player The player whose turn it is.
+     * @return A 64-bit hash of the position and its symmetries.
+     */
+    public long getCanonicalHash(int player) {
+        return getSymmetricHash(getCanonicalSymmetry()) ^ SIDE_KEYS[player];
+    }
+
+    /**
+     * Returns the symmetry that turns the board into the canonical board the canonical hash is
+     * taken from.
+     *
+     * @return The symmetry, see {@link Symmetry}.
+     */
+    public int getCanonicalSymmetry() {
+        int canonical = Symmetry.IDENTITY;
+        long lowest = hash;
+
+        for (int symmetry = 1; symmetry < Symmetry.COUNT; symmetry++) {
+            long symmetricHash = getSymmetricHash(symmetry);
+            if (Long.compareUnsigned(symmetricHash, lowest) < 0) {
+                lowest = symmetricHash;
+                canonical = symmetry;
+            }
+        }
+
+        return canonical;
+    }
+
+    /**
+     * Returns the number of empty cells, kept up to date on every set.
+     *
+     * @return The number of empty cells.
+     */
+    public int getEmptyCellCount() {
+        return emptyCells;
+    }
+
+    /**
+     * Returns the Zobrist hash of the board combined with the player to move. The hash is kept up
+     * to date on every set, so this is free to call at every search node.
+     *
+     * @param player The player whose turn it is.
+     * @return A 64-bit hash of the position.
+     */
+    public long getHash(int player) {
+        return hash ^ SIDE_KEYS[player];
+    }
+
     /**
      * Given an x and y coordinate, return the value of the cell at that coordinate.
      *
@@ -83,6 +173,28 @@ public class GameBoard {
         return cells[move];
     }
 
+    /**
+     * Returns how the hash changes when a cell changes from one value to another.
+     *
+     * @param move The index of the cell.
+     * @param from The value of the cell before, a player or EMPTY_CELL.
+     * @param to   The value of the cell after, a player or EMPTY_CELL.
+     * @return The keys to xor into the hash.
+     */
+    static long getCellChangeKey(int move, int from, int to) {
+        return CELL_KEYS[move * 3 + from] ^ CELL_KEYS[move * 3 + to];
+    }
+
+    /**
+     * Returns the key of the player to move that is mixed into the hashes.
+     *
+     * @param player The player whose turn it is.
+     * @return The key of the player.
+     */
+    static long getSideKey(int player) {
+        return SIDE_KEYS[player];
+    }
+
     /**
      * Returns the size of the game board.
      *
@@ -92,6 +204,26 @@ public class GameBoard {
         return size;
     }
 
+    /**
+     * Returns the Zobrist hash of the board after applying the symmetry to it.
+     *
+     * @param symmetry The symmetry to apply.
+     * @return The hash of the transformed board.
+     */
+    private long getSymmetricHash(int symmetry) {
+        if (symmetry == Symmetry.IDENTITY) {
+            return hash;
+        }
+
+        long symmetricHash = 0;
+        for (int i = 0; i < cells.length; i++) {
+            int cell = Symmetry.transform(i, size, symmetry);
+            symmetricHash ^= CELL_KEYS[cell * 3 + cells[i]];
+        }
+
+        return symmetricHash;
+    }
+
     /**
      * Set certain cells onto the game board. Used for testing.
      *
@@ -99,6 +231,15 @@ public class GameBoard {
      */
     public void setCells(int[] cells) {
         this.cells = cells;
+
+        hash = 0;
+        emptyCells = 0;
+        for (int i = 0; i < cells.length; i++) {
+            hash ^= CELL_KEYS[i * 3 + cells[i]];
+            if (cells[i] == EMPTY_CELL) {
+                emptyCells++;
+            }
+        }
     }
 
     /**
@@ -108,6 +249,14 @@ public class GameBoard {
      * @param player The player who is making the move.
      */
     public void setMove(int move, int player) {
+        if (cells[move] == EMPTY_CELL) {
+            emptyCells--;
+        }
+        if (player == EMPTY_CELL) {
+            emptyCells++;
+        }
+
+        hash ^= CELL_KEYS[move * 3 + cells[move]] ^ CELL_KEYS[move * 3 + player];
         cells[move] = player;
     }
 
@@ -127,6 +276,6 @@ public class GameBoard {
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(cells);
+        return Long.hashCode(hash);
     }
 }
@@ -44,24 +44,32 @@ public abstract class GameModel {
     }
 
     /**
-     * clone the GameModel.
+     * Copies a game, used by the clones of the games. The board is copied, the players are shared
+     * and the helper gets a fresh copy that belongs to this game.
      *
-     * @return a clone of the game model.
+     * @param other The game to copy.
      */
-    public GameModel clone() {
-        try {
-            GameModel gameClone = getClass().getDeclaredConstructor().newInstance();
-
-            // assign current state to new game
-            gameClone.board = board.clone();
-            gameClone.currentPlayer = currentPlayer;
-            gameClone.helper = helper.clone(gameClone);
-            gameClone.players = players.clone();
+    protected GameModel(GameModel other) {
+        this.name = other.name;
+        this.backgroundColor = other.backgroundColor;
+        this.board = other.board.clone();
+        this.images = other.images;
+        this.currentPlayer = other.currentPlayer;
+        this.players = other.players == null ? null : other.players.clone();
+        this.helper = other.helper == null ? null : other.helper.clone(this);
+    }
 
-            return gameClone;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Copies the position and players of another game of the same type into this game, reusing
+     * the board of this game. Used by {@link GameModelPool} to recycle search copies.
+     *
+     * @param other The game to copy.
+     */
+    public void copyFrom(GameModel other) {
+        board.copyFrom(other.board);
+        currentPlayer = other.currentPlayer;
+        players = other.players;
+        helper = other.helper == null ? null : other.helper.clone(this);
     }
 
     /**
@@ -82,6 +90,43 @@ public abstract class GameModel {
         return board;
     }
 
+    /**
+     * Returns a hash of the position that is the same for every rotation and reflection of the
+     * board, so symmetric positions can share a transposition table entry.
+     *
+     * @param player The player whose turn it is.
+     * @return A 64-bit hash of the position and its symmetries.
+     */
+    public long getCanonicalHash(int player) {
+        return board.getCanonicalHash(player);
+    }
+
+    /**
+     * Returns the symmetry that turns the board into its canonical form. Moves stored under the
+     * canonical hash are transformed with it, see {@link Symmetry}.
+     *
+     * @return The symmetry.
+     */
+    public int getCanonicalSymmetry() {
+        return board.getCanonicalSymmetry();
+    }
+
+    /**
+     * Returns the hash of the position after the move, with the opponent to move, see
+     * {@link GameBoard#getHash(int)}. Games that can compute it without making the move
+     * override this.
+     *
+     * @param move   The move to play.
+     * @param player The player who plays the move.
+     * @return The hash of the position after the move.
+     */
+    public long getHashAfter(int move, int player) {
+        makeMove(move, player);
+        long hash = board.getHash(player % 2 + 1);
+        undoMove();
+        return hash;
+    }
+
     /**
      * Returns the player whose turn it currently is.
      *
@@ -205,6 +250,13 @@ public abstract class GameModel {
         }
     }
 
+    /**
+     * clone the GameModel.
+     *
+     * @return a clone of the game model.
+     */
+    public abstract GameModel clone();
+
     /**
      * Returns the score of the current player at the current depth.
      *
@@ -221,6 +273,17 @@ public abstract class GameModel {
      */
     public abstract GameState getState();
 
+    /**
+     * Returns the state the game is certain to end in. A search can treat a position as finished
+     * as soon as its result is certain. By default that is only the case when the game is over,
+     * games that can prove the result earlier override this.
+     *
+     * @return The state the game will end in, or PLAYING if it is not certain yet.
+     */
+    public GameState getCertainResult() {
+        return getState();
+    }
+
     /**
      * Returns a list of all available cells on the board.
      *
@@ -229,6 +292,14 @@ public abstract class GameModel {
      */
     public abstract List<Integer> getValidMoves(int player);
 
+    /**
+     * Fills the move list with all available cells on the board, without allocating.
+     *
+     * @param player The player to get the valid moves for.
+     * @param moves  The list to fill, it is cleared first.
+     */
+    public abstract void getValidMoves(int player, MoveList moves);
+
     /**
      * Returns whether the player has any available cells.
      *
@@ -245,6 +316,15 @@ public abstract class GameModel {
      */
     public abstract boolean isValidMove(int move);
 
+    /**
+     * Sets the move for a specific player and remembers it, so it can be taken back with
+     * {@link #undoMove()}. Used by the search algorithms to walk the game tree in place.
+     *
+     * @param move   The move that the player wants to make.
+     * @param player The player who is making the move.
+     */
+    public abstract void makeMove(int move, int player);
+
     /**
      * Sets the move for a specific player.
      *
@@ -252,4 +332,9 @@ public abstract class GameModel {
      * @param player The player who is making the move.
      */
     public abstract void setMove(int move, int player);
+
+    /**
+     * Takes back the last move set with {@link #makeMove(int, int)}.
+     */
+    public abstract void undoMove();
 }
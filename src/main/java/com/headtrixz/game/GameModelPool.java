@@ -0,0 +1,49 @@
+package com.headtrixz.game;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A per-thread pool of game copies for the search algorithms. Released copies keep their board,
+ * so acquiring one again only copies the position instead of allocating a new game.
+ */
+public class GameModelPool {
+    private static final ThreadLocal<Map<Class<?>, ArrayDeque<GameModel>>> POOLS =
+        ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Returns a copy of the game, recycled from the pool of this thread when possible.
+     *
+     * @param game The game to copy.
+     * @return A copy of the game that only this thread uses.
+     */
+    public static GameModel acquire(GameModel game) {
+        GameModel copy = getPool(game).pollLast();
+        if (copy == null) {
+            return game.clone();
+        }
+
+        copy.copyFrom(game);
+        return copy;
+    }
+
+    /**
+     * Returns a copy to the pool of this thread. The copy must not be used afterwards.
+     *
+     * @param game The copy to release.
+     */
+    public static void release(GameModel game) {
+        getPool(game).addLast(game);
+    }
+
+    /**
+     * Returns the pool for the type of game of this thread.
+     *
+     * @param game The game to get the pool for.
+     * @return The pool.
+     */
+    private static ArrayDeque<GameModel> getPool(GameModel game) {
+        return POOLS.get().computeIfAbsent(game.getClass(), type -> new ArrayDeque<>());
+    }
+}
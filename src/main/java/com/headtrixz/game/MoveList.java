@@ -0,0 +1,74 @@
+package com.headtrixz.game;
+
+/**
+ * A reusable list of moves backed by a primitive array, so generating moves allocates nothing.
+ */
+public class MoveList {
+    private final int[] moves;
+    private int size;
+
+    /**
+     * A reusable list of moves.
+     *
+     * @param capacity The maximum amount of moves the list can hold.
+     */
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    /**
+     * Adds a move to the end of the list.
+     *
+     * @param move The move to add.
+     */
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    /**
+     * Removes all moves from the list.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the move at the index.
+     *
+     * @param index The index of the move.
+     * @return The move at the index.
+     */
+    public int get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Returns whether the list has no moves.
+     *
+     * @return Whether the list has no moves.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Swaps the moves at the two indexes, used to sort the list.
+     *
+     * @param i The index of the first move.
+     * @param j The index of the second move.
+     */
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    /**
+     * Returns the amount of moves in the list.
+     *
+     * @return The amount of moves in the list.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -13,17 +13,6 @@ import javafx.scene.paint.Color;
  */
 public class Othello extends GameModel {
     private static final int BOARD_SIZE = 8;
-    private static final int[][] DIRECTIONS = {
-        {0, -1}, // UP
-        {0, 1}, // DOWN
-        {1, 0}, // RIGHT
-        {-1, 0}, // LEFT
-        {1, -1}, // UP RIGHT
-        {-1, -1}, // UP LEFT
-        {1, 1}, // DOWN RIGHT
-        {-1, 1} // DOWN LEFT
-    };
-
     private static final double[] SCORES = {
         1.010000,  -0.270000, 0.560000,  -0.253853, -0.253853, 0.560000,  -0.270000, 1.010000,
         -0.270000, -0.740000, -0.384101, -0.080000, -0.080000, -0.384101, -0.740000, -0.270000,
@@ -36,6 +25,7 @@ public class Othello extends GameModel {
     };
 
     private static final String NAME = "Othello";
+    private static final long NOT_CACHED = -1L;
 
     // GUI Config
     private static final Color BACKGROUND_COLOR = Color.rgb(2, 142, 71);
@@ -46,6 +36,22 @@ public class Othello extends GameModel {
     private static final String SUGGESTION_IMAGE =
         Othello.class.getResource("/images/suggestion.png").toString();
 
+    private long playerOneDiscs;
+    private long playerTwoDiscs;
+
+    // Undo stack for makeMove/undoMove, every move fills a cell so it never exceeds the board.
+    private final int[] undoMoves = new int[BOARD_SIZE * BOARD_SIZE];
+    private final long[] undoFlips = new long[BOARD_SIZE * BOARD_SIZE];
+    private int undoCount = 0;
+
+    // Mobility and state of the current position, computed at most once per position.
+    private long playerOneMoves = NOT_CACHED;
+    private long playerTwoMoves = NOT_CACHED;
+    private GameState boardState = null;
+    private GameState certainResult = null;
+    private long canonicalHash;
+    private int canonicalSymmetry = -1;
+
     /**
      * Represents a game of Othello.
      */
@@ -59,10 +65,159 @@ public class Othello extends GameModel {
             PLAYER_TWO_IMAGE
         );
 
-        board.setMove(27, PLAYER_TWO);
-        board.setMove(28, PLAYER_ONE);
-        board.setMove(35, PLAYER_ONE);
-        board.setMove(36, PLAYER_TWO);
+        placeDisc(27, PLAYER_TWO);
+        placeDisc(28, PLAYER_ONE);
+        placeDisc(35, PLAYER_ONE);
+        placeDisc(36, PLAYER_TWO);
+    }
+
+    /**
+     * Copies a game of Othello, including the discs of both players.
+     *
+     * @param other The game to copy.
+     */
+    private Othello(Othello other) {
+        super(other);
+        copyDiscs(other);
+    }
+
+    /**
+     * clone the Othello game, including the discs of both players.
+     *
+     * @return a clone of the game.
+     */
+    @Override
+    public Othello clone() {
+        return new Othello(this);
+    }
+
+    /**
+     * Copies the position of another game of Othello into this game.
+     *
+     * @param other The game to copy.
+     */
+    @Override
+    public void copyFrom(GameModel other) {
+        super.copyFrom(other);
+        copyDiscs((Othello) other);
+    }
+
+    /**
+     * Copies the discs and the cached mobility of another game. The undo history is not copied.
+     *
+     * @param other The game to copy.
+     */
+    private void copyDiscs(Othello other) {
+        playerOneDiscs = other.playerOneDiscs;
+        playerTwoDiscs = other.playerTwoDiscs;
+        playerOneMoves = other.playerOneMoves;
+        playerTwoMoves = other.playerTwoMoves;
+        boardState = other.boardState;
+        certainResult = other.certainResult;
+        canonicalHash = other.canonicalHash;
+        canonicalSymmetry = other.canonicalSymmetry;
+        undoCount = 0;
+    }
+
+    /**
+     * Returns a hash of the position that is the same for every rotation and reflection of the
+     * board. Computed on the bitboards instead of on the cells.
+     *
+     * @param player The player whose turn it is.
+     * @return A 64-bit hash of the position and its symmetries.
+     */
+    @Override
+    public long getCanonicalHash(int player) {
+        canonicalize();
+        return canonicalHash ^ GameBoard.getSideKey(player);
+    }
+
+    /**
+     * Returns the symmetry that turns the board into its canonical form.
+     *
+     * @return The symmetry.
+     */
+    @Override
+    public int getCanonicalSymmetry() {
+        canonicalize();
+        return canonicalSymmetry;
+    }
+
+    /**
+     * Finds the symmetry of the board with the lowest hash and caches it with that hash.
+     */
+    private void canonicalize() {
+        if (canonicalSymmetry != -1) {
+            return;
+        }
+
+        canonicalSymmetry = Symmetry.IDENTITY;
+        canonicalHash = hashDiscs(playerOneDiscs, playerTwoDiscs);
+
+        for (int symmetry = 1; symmetry < Symmetry.COUNT; symmetry++) {
+            long hash = hashDiscs(
+                Symmetry.transform(playerOneDiscs, symmetry),
+                Symmetry.transform(playerTwoDiscs, symmetry)
+            );
+
+            if (Long.compareUnsigned(hash, canonicalHash) < 0) {
+                canonicalHash = hash;
+                canonicalSymmetry = symmetry;
+            }
+        }
+    }
+
+    /**
+     * Returns the hash of the position after the move, with the opponent to move. The hash is
+     * updated with the placed disc and the flipped discs, without touching the board.
+     *
+     * @param move   The move to play.
+     * @param player The player who plays the move.
+     * @return The hash of the position after the move.
+     */
+    @Override
+    public long getHashAfter(int move, int player) {
+        int opponent = player % 2 + 1;
+        long hash = board.getHash(opponent)
+            ^ GameBoard.getCellChangeKey(move, GameBoard.EMPTY_CELL, player);
+
+        for (long flips = getFlipMask(move, player); flips != 0; flips &= flips - 1) {
+            hash ^= GameBoard.getCellChangeKey(Long.numberOfTrailingZeros(flips), opponent, player);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Returns the discs of a player as a mask, one bit per cell.
+     *
+     * @param player The player to get the discs for.
+     * @return The discs of the player.
+     */
+    public long getDiscs(int player) {
+        return player == PLAYER_ONE ? playerOneDiscs : playerTwoDiscs;
+    }
+
+    /**
+     * Forgets the cached mobility and state, has to be called whenever the board changes.
+     */
+    private void clearCache() {
+        playerOneMoves = NOT_CACHED;
+        playerTwoMoves = NOT_CACHED;
+        boardState = null;
+        certainResult = null;
+        canonicalSymmetry = -1;
+    }
+
+    /**
+     * Returns the discs of the player that can never be flipped again, see
+     * {@link BitBoard#getStableDiscs}.
+     *
+     * @param player The player to get the stable discs for.
+     * @return A mask with the stable discs of the player.
+     */
+    public long getStableDiscs(int player) {
+        return BitBoard.getStableDiscs(getDiscs(player), getDiscs(player % 2 + 1));
     }
 
     /**
@@ -73,32 +228,48 @@ public class Othello extends GameModel {
      * @return A list with the tiles that will be flipped when a move is set.
      */
     public List<Integer> getFlips(int move, int player) {
-        final int finalX = move % BOARD_SIZE;
-        final int finalY = move / BOARD_SIZE;
-
-        List<Integer> flips = new ArrayList<>();
-        for (int[] direction : DIRECTIONS) {
-            int x = finalX + direction[0];
-            int y = finalY + direction[1];
+        long flips = getFlipMask(move, player);
 
-            while (inBounds(x, y) && board.getMove(x, y) != GameBoard.EMPTY_CELL) {
-                if (board.getMove(x, y) == player) {
-                    while (x - direction[0] != finalX || y - direction[1] != finalY) {
-                        x -= direction[0];
-                        y -= direction[1];
+        List<Integer> list = new ArrayList<>(Long.bitCount(flips));
+        while (flips != 0) {
+            list.add(Long.numberOfTrailingZeros(flips));
+            flips &= flips - 1;
+        }
 
-                        flips.add(x + y * BOARD_SIZE);
-                    }
+        return list;
+    }
 
-                    break;
-                }
+    /**
+     * Returns the discs that get flipped when a stone is placed as a mask.
+     *
+     * @param move the position on the board.
+     * @param player the player whose turn it is.
+     * @return A mask with the tiles that will be flipped when a move is set.
+     */
+    private long getFlipMask(int move, int player) {
+        return BitBoard.getFlips(getDiscs(player), getDiscs(player % 2 + 1), move);
+    }
 
-                x += direction[0];
-                y += direction[1];
+    /**
+     * Returns all cells the player can set a stone on as a mask, one bit per cell.
+     *
+     * @param player The player to get the valid moves for.
+     * @return A mask with the valid moves of the player.
+     */
+    public long getMoveMask(int player) {
+        if (player == PLAYER_ONE) {
+            if (playerOneMoves == NOT_CACHED) {
+                playerOneMoves = BitBoard.getMoves(playerOneDiscs, playerTwoDiscs);
             }
+
+            return playerOneMoves;
         }
 
-        return flips;
+        if (playerTwoMoves == NOT_CACHED) {
+            playerTwoMoves = BitBoard.getMoves(playerTwoDiscs, playerOneDiscs);
+        }
+
+        return playerTwoMoves;
     }
 
     /**
@@ -109,13 +280,11 @@ public class Othello extends GameModel {
      */
     private float getPlayerScore(int player) {
         float score = 0;
-        for (int i = 0; i < board.getCellCount(); i++) {
-            if (board.getMove(i) == player) {
-                score += SCORES[i];
-            }
-            if (board.getMove(i) == player % 2 + 1) {
-                score -= SCORES[i];
-            }
+        for (long discs = getDiscs(player); discs != 0; discs &= discs - 1) {
+            score += SCORES[Long.numberOfTrailingZeros(discs)];
+        }
+        for (long discs = getDiscs(player % 2 + 1); discs != 0; discs &= discs - 1) {
+            score -= SCORES[Long.numberOfTrailingZeros(discs)];
         }
         return score;
     }
@@ -127,7 +296,7 @@ public class Othello extends GameModel {
      * @return the score of the board
      */
     public float getScore(Player player, int depth) {
-        return switch (getState()) {
+        return switch (getCertainResult()) {
             case DRAW -> 100f;
             case PLAYER_ONE_WON -> player.getId() == PLAYER_ONE ? 1000f : -1000f;
             case PLAYER_TWO_WON -> player.getId() == PLAYER_TWO ? 1000f : -1000f;
@@ -147,22 +316,68 @@ public class Othello extends GameModel {
             return state;
         }
 
-        if (isPlaying()) {
-            return GameState.PLAYING;
+        if (boardState == null) {
+            boardState = getBoardState();
         }
 
-        int p1 = 0;
-        int p2 = 0;
+        return boardState;
+    }
 
-        for (int i = 0; i < board.getCellCount(); i++) {
-            if (board.getMove(i) == PLAYER_ONE) {
-                p1++;
-            }
-            if (board.getMove(i) == PLAYER_TWO) {
-                p2++;
-            }
+    /**
+     * Returns the state the game is certain to end in. A player with more than half of the board
+     * in stable discs has won, whatever happens with the other discs.
+     *
+     * @return The state the game will end in, or PLAYING if it is not certain yet.
+     */
+    @Override
+    public GameState getCertainResult() {
+        GameState state = getState();
+        if (state != GameState.PLAYING) {
+            return state;
+        }
+
+        if (certainResult == null) {
+            certainResult = getStableResult();
+        }
+
+        return certainResult;
+    }
+
+    /**
+     * Returns the player that has won on stable discs alone.
+     *
+     * @return The state of the game, PLAYING if neither player has won yet.
+     */
+    private GameState getStableResult() {
+        int half = board.getCellCount() / 2;
+
+        // Only a player with more than half of the discs can have more than half of them stable.
+        if (Long.bitCount(playerOneDiscs) > half
+                && Long.bitCount(getStableDiscs(PLAYER_ONE)) > half) {
+            return GameState.PLAYER_ONE_WON;
+        }
+
+        if (Long.bitCount(playerTwoDiscs) > half
+                && Long.bitCount(getStableDiscs(PLAYER_TWO)) > half) {
+            return GameState.PLAYER_TWO_WON;
         }
 
+        return GameState.PLAYING;
+    }
+
+    /**
+     * Returns the state of the game based on the stones on the board only.
+     *
+     * @return The state of the game.
+     */
+    private GameState getBoardState() {
+        if (isPlaying()) {
+            return GameState.PLAYING;
+        }
+
+        int p1 = Long.bitCount(playerOneDiscs);
+        int p2 = Long.bitCount(playerTwoDiscs);
+
         if (p1 > p2) {
             return GameState.PLAYER_ONE_WON;
         }
@@ -181,41 +396,65 @@ public class Othello extends GameModel {
      * @return A list of all available cells on the board.
      */
     public List<Integer> getValidMoves(int player) {
-        List<Integer> list = new ArrayList<>();
-        for (int i = 0; i < board.getCellCount(); i++) {
-            if (isValidMove(i, player)) {
-                list.add(i);
-            }
+        long moves = getMoveMask(player);
+
+        List<Integer> list = new ArrayList<>(Long.bitCount(moves));
+        while (moves != 0) {
+            list.add(Long.numberOfTrailingZeros(moves));
+            moves &= moves - 1;
         }
 
         return list;
     }
 
     /**
-     * Returns whether the player has any available cells.
+     * Fills the move list with all available cells on the board.
      *
-     * @param player The player to check.
-     * @return Whether the player has any available cells.
+     * @param player The player to get the valid moves for.
+     * @param moves The list to fill.
      */
-    public boolean hasValidMoves(int player) {
-        for (int i = 0; i < board.getCellCount(); i++) {
-            if (isValidMove(i, player)) {
-                return true;
-            }
+    @Override
+    public void getValidMoves(int player, MoveList moves) {
+        moves.clear();
+        for (long mask = getMoveMask(player); mask != 0; mask &= mask - 1) {
+            moves.add(Long.numberOfTrailingZeros(mask));
         }
+    }
 
-        return false;
+    /**
+     * Hashes the discs of both players into 64 bits.
+     *
+     * @param playerOne The discs of player one.
+     * @param playerTwo The discs of player two.
+     * @return The hash.
+     */
+    private static long hashDiscs(long playerOne, long playerTwo) {
+        return mix(playerOne ^ mix(playerTwo));
     }
 
     /**
-     * Returns true if the given move is within the bounds of the board.
+     * Scrambles the bits of a value, the finalizer of MurmurHash3.
      *
-     * @param x The x coordinate of the tile to check.
-     * @param y The y coordinate of the tile to check.
-     * @return Whether the move is in bounds.
+     * @param value The value to scramble.
+     * @return The scrambled value.
      */
-    private boolean inBounds(int x, int y) {
-        return x >= 0 && x < board.getSize() && y >= 0 && y < board.getSize();
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Returns whether the player has any available cells.
+     *
+     * @param player The player to check.
+     * @return Whether the player has any available cells.
+     */
+    public boolean hasValidMoves(int player) {
+        return getMoveMask(player) != 0;
     }
 
     /**
@@ -246,7 +485,7 @@ public class Othello extends GameModel {
      * @return Whether the move is valid.
      */
     public boolean isValidMove(int move, int player) {
-        if (move < 0) {
+        if (move < 0 || move >= board.getCellCount()) {
             return false;
         }
 
@@ -254,23 +493,110 @@ public class Othello extends GameModel {
             return false;
         }
 
-        List<Integer> flips = getFlips(move, player);
-        return flips.size() > 0;
+        return getFlipMask(move, player) != 0;
     }
 
     /**
-     * Updates the board to show the move that was just played.
+     * Sets the move for a specific player and pushes the flipped stones onto the undo stack.
      *
      * @param move The position on the board.
      * @param player The player who is setting the set.
      */
     @Override
-    public void setMove(int move, int player) {
-        List<Integer> flips = getFlips(move, player);
+    public void makeMove(int move, int player) {
+        long flips = getFlipMask(move, player);
+
+        undoMoves[undoCount] = move;
+        undoFlips[undoCount] = flips;
+        undoCount++;
+
+        clearCache();
+        placeDisc(move, player);
+        placeDiscs(flips, player);
+    }
+
+    /**
+     * Puts a stone of the player on the board without flipping anything.
+     *
+     * @param move The position on the board.
+     * @param player The player who owns the stone.
+     */
+    private void placeDisc(int move, int player) {
+        long bit = 1L << move;
+        if (player == PLAYER_ONE) {
+            playerOneDiscs |= bit;
+            playerTwoDiscs &= ~bit;
+        } else {
+            playerTwoDiscs |= bit;
+            playerOneDiscs &= ~bit;
+        }
+
         board.setMove(move, player);
+    }
+
+    /**
+     * Puts a stone of the player on every cell in the mask.
+     *
+     * @param discs The cells to put a stone on.
+     * @param player The player who owns the stones.
+     */
+    private void placeDiscs(long discs, int player) {
+        for (; discs != 0; discs &= discs - 1) {
+            placeDisc(Long.numberOfTrailingZeros(discs), player);
+        }
+    }
 
-        for (int cell : flips) {
-            board.setMove(cell, player);
+    /**
+     * Replaces all stones on the board. Used to set up test positions.
+     *
+     * @param cells array of cells with the same amount of cells as the board.
+     */
+    public void setCells(int[] cells) {
+        board.setCells(cells);
+        playerOneDiscs = 0;
+        playerTwoDiscs = 0;
+        undoCount = 0;
+        clearCache();
+
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == PLAYER_ONE) {
+                playerOneDiscs |= 1L << i;
+            } else if (cells[i] == PLAYER_TWO) {
+                playerTwoDiscs |= 1L << i;
+            }
         }
     }
+
+    /**
+     * Updates the board to show the move that was just played.
+     *
+     * @param move The position on the board.
+     * @param player The player who is setting the set.
+     */
+    @Override
+    public void setMove(int move, int player) {
+        long flips = getFlipMask(move, player);
+        clearCache();
+        placeDisc(move, player);
+        placeDiscs(flips, player);
+    }
+
+    /**
+     * Takes back the last move set with makeMove and flips its stones back to the opponent.
+     */
+    @Override
+    public void undoMove() {
+        undoCount--;
+        int move = undoMoves[undoCount];
+        long flips = undoFlips[undoCount];
+        int opponent = board.getMove(move) % 2 + 1;
+        clearCache();
+
+        long bit = 1L << move;
+        playerOneDiscs &= ~bit;
+        playerTwoDiscs &= ~bit;
+        board.setMove(move, GameBoard.EMPTY_CELL);
+
+        placeDiscs(flips, opponent);
+    }
 }
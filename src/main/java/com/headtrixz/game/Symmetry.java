@@ -0,0 +1,116 @@
+package com.headtrixz.game;
+
+/**
+ * The eight rotations and reflections of a square board. A symmetry is a number from 0 to 7: the
+ * board is first transposed if bit 2 is set, then mirrored left to right if bit 0 is set and
+ * flipped top to bottom if bit 1 is set. Symmetry 0 leaves the board as it is.
+ */
+public final class Symmetry {
+    public static final int COUNT = 8;
+    public static final int IDENTITY = 0;
+
+    private static final int MIRROR = 1;
+    private static final int FLIP = 2;
+    private static final int TRANSPOSE = 4;
+
+    private Symmetry() { }
+
+    /**
+     * Returns where a cell ends up when the symmetry is undone, the opposite of transform.
+     *
+     * @param cell     The index of the cell on the transformed board.
+     * @param size     The size of the board.
+     * @param symmetry The symmetry that was applied.
+     * @return The index of the cell on the original board.
+     */
+    public static int inverse(int cell, int size, int symmetry) {
+        int x = cell % size;
+        int y = cell / size;
+
+        if ((symmetry & MIRROR) != 0) {
+            x = size - 1 - x;
+        }
+        if ((symmetry & FLIP) != 0) {
+            y = size - 1 - y;
+        }
+
+        return (symmetry & TRANSPOSE) != 0 ? x * size + y : y * size + x;
+    }
+
+    /**
+     * Returns where a cell ends up when the symmetry is applied to the board.
+     *
+     * @param cell     The index of the cell.
+     * @param size     The size of the board.
+     * @param symmetry The symmetry to apply.
+     * @return The index of the cell on the transformed board.
+     */
+    public static int transform(int cell, int size, int symmetry) {
+        int x = cell % size;
+        int y = cell / size;
+
+        if ((symmetry & TRANSPOSE) != 0) {
+            int temp = x;
+            x = y;
+            y = temp;
+        }
+        if ((symmetry & MIRROR) != 0) {
+            x = size - 1 - x;
+        }
+        if ((symmetry & FLIP) != 0) {
+            y = size - 1 - y;
+        }
+
+        return y * size + x;
+    }
+
+    /**
+     * Applies the symmetry to an 8x8 bitboard, moving every bit the way transform moves its cell.
+     *
+     * @param bits     The bitboard.
+     * @param symmetry The symmetry to apply.
+     * @return The transformed bitboard.
+     */
+    public static long transform(long bits, int symmetry) {
+        if ((symmetry & TRANSPOSE) != 0) {
+            bits = transpose(bits);
+        }
+        if ((symmetry & MIRROR) != 0) {
+            bits = mirror(bits);
+        }
+        if ((symmetry & FLIP) != 0) {
+            bits = Long.reverseBytes(bits);
+        }
+
+        return bits;
+    }
+
+    /**
+     * Mirrors an 8x8 bitboard left to right by reversing the bits of every row.
+     *
+     * @param bits The bitboard.
+     * @return The mirrored bitboard.
+     */
+    private static long mirror(long bits) {
+        bits = ((bits >>> 1) & 0x5555555555555555L) | ((bits & 0x5555555555555555L) << 1);
+        bits = ((bits >>> 2) & 0x3333333333333333L) | ((bits & 0x3333333333333333L) << 2);
+        bits = ((bits >>> 4) & 0x0f0f0f0f0f0f0f0fL) | ((bits & 0x0f0f0f0f0f0f0f0fL) << 4);
+        return bits;
+    }
+
+    /**
+     * Transposes an 8x8 bitboard, swapping the x and y coordinate of every bit.
+     *
+     * @param bits The bitboard.
+     * @return The transposed bitboard.
+     */
+    private static long transpose(long bits) {
+        long temp = 0x0f0f0f0f00000000L & (bits ^ (bits << 28));
+        bits ^= temp ^ (temp >>> 28);
+        temp = 0x3333000033330000L & (bits ^ (bits << 14));
+        bits ^= temp ^ (temp >>> 14);
+        temp = 0x5500550055005500L & (bits ^ (bits << 7));
+        bits ^= temp ^ (temp >>> 7);
+        return bits;
+    }
+}
@@ -24,6 +24,10 @@ public class TicTacToe extends GameModel {
         TicTacToe.class.getResource("/images/o.png").toString();
     private static final String SUGGESTION_IMAGE = null;
 
+    // Undo stack for makeMove/undoMove.
+    private final int[] undoMoves = new int[BOARD_SIZE * BOARD_SIZE];
+    private int undoCount = 0;
+
     /**
      * Represents a game of Tic Tac Toe.
      */
@@ -38,6 +42,36 @@ public class TicTacToe extends GameModel {
         );
     }
 
+    /**
+     * Copies a game of Tic Tac Toe.
+     *
+     * @param other The game to copy.
+     */
+    private TicTacToe(TicTacToe other) {
+        super(other);
+    }
+
+    /**
+     * clone the Tic Tac Toe game.
+     *
+     * @return a clone of the game.
+     */
+    @Override
+    public TicTacToe clone() {
+        return new TicTacToe(this);
+    }
+
+    /**
+     * Copies the position of another game of Tic Tac Toe into this game.
+     *
+     * @param other The game to copy.
+     */
+    @Override
+    public void copyFrom(GameModel other) {
+        super.copyFrom(other);
+        undoCount = 0;
+    }
+
     /**
      * Returns the current state of the game.
      *
@@ -96,6 +130,22 @@ public class TicTacToe extends GameModel {
         return list;
     }
 
+    /**
+     * Fills the move list with all available cells on the board.
+     *
+     * @param player The player to get the valid moves for.
+     * @param moves The list to fill.
+     */
+    @Override
+    public void getValidMoves(int player, MoveList moves) {
+        moves.clear();
+        for (int i = 0; i < board.getCellCount(); i++) {
+            if (board.getMove(i) == EMPTY_CELL) {
+                moves.add(i);
+            }
+        }
+    }
+
     /**
      * Returns whether the board has no empty cells left.
      *
@@ -144,6 +194,18 @@ public class TicTacToe extends GameModel {
                 && board.getMove(move) == EMPTY_CELL;
     }
 
+    /**
+     * Sets the move for a specific player and pushes it onto the undo stack.
+     *
+     * @param move The move that the player wants to make.
+     * @param player The player who is making the move.
+     */
+    @Override
+    public void makeMove(int move, int player) {
+        undoMoves[undoCount++] = move;
+        board.setMove(move, player);
+    }
+
     /**
      * Sets the move for a specific player.
      *
@@ -153,4 +215,12 @@ public class TicTacToe extends GameModel {
     public void setMove(int move, int player) {
         board.setMove(move, player);
     }
+
+    /**
+     * Takes back the last move set with makeMove.
+     */
+    @Override
+    public void undoMove() {
+        board.setMove(undoMoves[--undoCount], EMPTY_CELL);
+    }
 }
@@ -21,6 +21,17 @@ public class BenchmarkHelper extends GameModelHelper {
         super(controller, game);
     }
 
+    /**
+     * Creates a clone of the helper.
+     *
+     * @param game The game the helper is for.
+     * @return A clone of the helper.
+     */
+    @Override
+    public GameModelHelper clone(GameModel game) {
+        return new BenchmarkHelper(controller, game);
+    }
+
     /**
      * Ends a game when the player forfeits.
      */
@@ -27,16 +27,7 @@ public abstract class GameModelHelper {
      * @param game The game the helper is for.
      * @return A clone of the helper.
      */
-    public GameModelHelper clone(GameModel game) {
-        try {
-            return this
-                .getClass()
-                .getDeclaredConstructor(GameMethods.class, GameModel.class)
-                .newInstance(controller, game);
-        } catch (Exception ignored) {
-            return null;
-        }
-    }
+    public abstract GameModelHelper clone(GameModel game);
 
     /**
      * Ends the game when the player forfeits.
@@ -68,4 +59,12 @@ public abstract class GameModelHelper {
      * @param player The player whose turn it is.
      */
     public abstract void nextTurn(Player player);
+
+    /**
+     * Stops the players that are still thinking about a move, the game is over.
+     */
+    protected void stopPlayers() {
+        game.getPlayer(0).stop();
+        game.getPlayer(1).stop();
+    }
 }
@@ -10,7 +10,7 @@ import javafx.application.Platform;
  * Represents a helper class that handles the game logic for an offline game.
  */
 public class OfflineHelper extends GameModelHelper {
-    private GameModel.GameState state;
+    private volatile GameModel.GameState state;
 
     /**
      * Represents a helper class that handles the game logic for an offline game.
@@ -22,12 +22,24 @@ public class OfflineHelper extends GameModelHelper {
         super(controller, game);
     }
 
+    /**
+     * Creates a clone of the helper.
+     *
+     * @param game The game the helper is for.
+     * @return A clone of the helper.
+     */
+    @Override
+    public GameModelHelper clone(GameModel game) {
+        return new OfflineHelper(controller, game);
+    }
+
     /**
      * Ends the game when the player forfeits.
      */
     @Override
     public void forfeit() {
         this.state = GameModel.GameState.PLAYER_TWO_WON;
+        stopPlayers();
     }
 
     /**
@@ -85,6 +97,11 @@ public class OfflineHelper extends GameModelHelper {
     @Override
     public void nextTurn(Player player) {
         player.onTurn(m -> {
+            // The player forfeited while the AI was thinking, the game is over.
+            if (state != null) {
+                return;
+            }
+
             if (m == -1 || !game.isValidMove(m)) {
                 nextPlayer();
                 Platform.runLater(() -> {
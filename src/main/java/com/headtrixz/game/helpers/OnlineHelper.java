@@ -18,7 +18,7 @@ import javafx.application.Platform;
 public class OnlineHelper extends GameModelHelper {
     private Connection connection;
     private Player localPlayer;
-    private GameModel.GameState state;
+    private volatile GameModel.GameState state;
 
     /**
      * Represents a helper class that handles the game logic for an online game.
@@ -30,11 +30,23 @@ public class OnlineHelper extends GameModelHelper {
         super(controller, game);
     }
 
+    /**
+     * Creates a clone of the helper.
+     *
+     * @param game The game the helper is for.
+     * @return A clone of the helper.
+     */
+    @Override
+    public GameModelHelper clone(GameModel game) {
+        return new OnlineHelper(controller, game);
+    }
+
     /**
      * Ends the game and heads to the finish screen.
      */
     private void endGame() {
         unsubscribeAll();
+        stopPlayers();
         Platform.runLater(controller::endGame);
     }
 
@@ -44,6 +56,7 @@ public class OnlineHelper extends GameModelHelper {
     @Override
     public void forfeit() {
         unsubscribeAll();
+        stopPlayers();
         connection.getOutputHandler().forfeit();
     }
 
@@ -100,7 +113,8 @@ public class OnlineHelper extends GameModelHelper {
 
         if (player == localPlayer) {
             player.onTurn(m -> {
-                if (m == -1) {
+                // The game ended while the player was thinking, the move is too late.
+                if (m == -1 || state != null) {
                     return;
                 }
 
@@ -117,6 +131,11 @@ public class OnlineHelper extends GameModelHelper {
         Player player = game.getPlayer(obj.get("PLAYER"));
         int move = Integer.parseInt(obj.get("MOVE"));
 
+        // The local player may be pondering on the board as it was, so it hears first.
+        if (player != localPlayer) {
+            localPlayer.onOpponentMove(move);
+        }
+
         game.setMove(move, player.getId());
         Platform.runLater(() -> {
             controller.update(move, player);
@@ -124,6 +143,7 @@ public class OnlineHelper extends GameModelHelper {
 
         if (player == localPlayer) {
             nextTurn(game.getOpponent(localPlayer));
+            localPlayer.ponder();
         }
     };
 
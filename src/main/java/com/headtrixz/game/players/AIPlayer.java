@@ -1,45 +1,313 @@
 package com.headtrixz.game.players;
 
+import com.headtrixz.algorithms.EndgameSolver;
 import com.headtrixz.algorithms.MiniMax;
+import com.headtrixz.algorithms.PonderBudget;
+import com.headtrixz.algorithms.SearchResult;
+import com.headtrixz.algorithms.TimeBudget;
+import com.headtrixz.algorithms.TimeManager;
 import com.headtrixz.factory.MiniMaxFactory;
 import com.headtrixz.factory.MiniMaxFactory.MiniMaxType;
 import com.headtrixz.game.GameModel;
+import com.headtrixz.game.Othello;
+import com.headtrixz.game.TicTacToe;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * The AI player that makes use of minimax.
+ * The AI player that makes use of minimax. While the opponent thinks, the player can already
+ * search the position after the reply it expects, see {@link #ponder()}.
  */
 public class AIPlayer extends Player {
+    private static final int DEFAULT_ENDGAME_EMPTIES = 20;
+
+    // Pondering never outlasts the opponent's move limit by much, even when nobody stops it.
+    private static final int PONDER_TIME = 60000;
+    private static final ExecutorService PONDER_EXECUTOR = Executors.newSingleThreadExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "ponder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final GameModel game;
+    private final GameModel searchGame;
     private final MiniMax miniMax;
+    private final EndgameSolver endgameSolver;
+    private final TimeManager timeManager;
+    private int endgameEmpties = DEFAULT_ENDGAME_EMPTIES;
+    private volatile SearchResult lastResult;
+    private volatile boolean stopped = false;
+
+    // The search on the opponent's time, its budget and the reply it expects.
+    private volatile Future<SearchResult> ponderSearch;
+    private volatile PonderBudget ponderBudget;
+    private int ponderMove = -1;
+    private volatile boolean ponderHit = false;
 
     /**
-     * Create a new AI player.
+     * Create a new AI player. Tic Tac Toe is looked up in a solved table, other games are
+     * searched.
      *
      * @param game The game the player is playing in.
      * @param username The username of the player.
      */
     public AIPlayer(GameModel game, String username) {
-        super(username);
-        this.miniMax = MiniMaxFactory.createMiniMax(MiniMaxType.MiniMaxOptimized, game);
+        this(
+            game,
+            username,
+            game instanceof TicTacToe ? MiniMaxType.TicTacToeSolver : MiniMaxType.MiniMaxOptimized
+        );
     }
 
+    /**
+     * Create a new AI player with a specific algorithm. In Othello the end of the game is solved
+     * perfectly instead, once few enough cells are empty.
+     *
+     * @param game The game the player is playing in.
+     * @param username The username of the player.
+     * @param algorithm The algorithm to search with.
+     */
     public AIPlayer(GameModel game, String username, MiniMaxType algorithm) {
         super(username);
-        this.miniMax = MiniMaxFactory.createMiniMax(algorithm, game);
+        this.game = game;
+
+        // The engines search their own copy, so they can search ahead while the game waits for
+        // the opponent.
+        this.searchGame = game.clone();
+        this.miniMax = MiniMaxFactory.createMiniMax(algorithm, searchGame);
+        this.endgameSolver = searchGame instanceof Othello othello
+            ? new EndgameSolver(othello)
+            : null;
+        this.timeManager = new TimeManager(game);
     }
 
     /**
-     * Get the Best Move™️ from the Minimax algorithm.
+     * Get the Best Move™️ from the Minimax algorithm, within the time the time manager gives the
+     * move. When the player was pondering on the reply the opponent played, that search goes on
+     * instead.
      *
      * @return the best possible move.
      */
     @Override
     public int getMove() {
-        return miniMax.iterativeDeepening(10000);
-        // return miniMax.getMove(7);
+        TimeBudget budget = timeManager.startMove();
+        SearchResult result = ponderSearch == null ? null : finishPondering(budget);
+        if (result == null) {
+            clearStop();
+            searchGame.copyFrom(game);
+            result = search(budget);
+        }
+
+        lastResult = result;
+        timeManager.endMove(budget);
+        return result.move();
+    }
+
+    /**
+     * Returns the result of the last timed search, with the score, depth and principal variation
+     * behind the move it played.
+     *
+     * @return The last result, or null if the player has not searched yet.
+     */
+    public SearchResult getLastResult() {
+        return lastResult;
     }
 
     @Override
     public int getMove(int depth) {
+        searchGame.copyFrom(game);
         return miniMax.getMove(depth);
     }
+
+    /**
+     * Starts searching the position after the reply the last search expected from the opponent,
+     * on the opponent's time. The search fills the transposition table of the engine, so even when
+     * the opponent plays something else the next search can use part of it.
+     */
+    @Override
+    public void ponder() {
+        Player opponent = game.getOpponent(this);
+        int reply = lastResult == null ? -1 : lastResult.expectedReply();
+        if (ponderSearch != null || !game.getValidMoves(opponent.getId()).contains(reply)) {
+            return;
+        }
+
+        searchGame.copyFrom(game);
+        searchGame.setMove(reply, opponent.getId());
+        searchGame.setCurrentPlayer(this);
+        if (searchGame.getState() != GameModel.GameState.PLAYING
+                || !searchGame.hasValidMoves(id)) {
+            return;
+        }
+
+        ponderMove = reply;
+        ponderHit = false;
+        clearStop();
+        PonderBudget budget = new PonderBudget(PONDER_TIME);
+        ponderBudget = budget;
+        ponderSearch = PONDER_EXECUTOR.submit(() -> search(budget));
+    }
+
+    /**
+     * Checks the move of the opponent against the reply the player is pondering on. Pondering on
+     * anything else is stopped right away. Only the first move after the pondering started counts,
+     * when the player has to pass the opponent moves again in a position it did not ponder on.
+     *
+     * @param move The move the opponent played.
+     */
+    @Override
+    public void onOpponentMove(int move) {
+        if (ponderSearch == null || ponderMove == -1) {
+            return;
+        }
+
+        ponderHit = move == ponderMove;
+        ponderMove = -1;
+        if (!ponderHit) {
+            stop();
+        }
+    }
+
+    /**
+     * Stops the search for the current move or the pondering, a move is answered with the best
+     * move found so far.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        miniMax.stop();
+        if (endgameSolver != null) {
+            endgameSolver.stop();
+        }
+    }
+
+    /**
+     * Returns the time manager, to set the time limits of the game.
+     *
+     * @return The time manager.
+     */
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    /**
+     * Sets from how many empty cells on the endgame solver takes over from the search.
+     *
+     * @param endgameEmpties The amount of empty cells, 0 turns the solver off.
+     */
+    public void setEndgameEmpties(int endgameEmpties) {
+        this.endgameEmpties = endgameEmpties;
+    }
+
+    /**
+     * Ends the pondering. When the opponent played the expected reply, the search has been
+     * searching the current position all along. The budget of the move takes over, so it stops
+     * the same way a search of the move would. A search that does not finish depths does not ask
+     * the budget, it is stopped at the target.
+     *
+     * @param budget The time the move may take.
+     * @return The result of the pondering when the opponent played the expected reply and the
+     *     result can be played, otherwise null.
+     */
+    private SearchResult finishPondering(TimeBudget budget) {
+        Future<SearchResult> search = ponderSearch;
+        ponderSearch = null;
+
+        SearchResult result = null;
+        if (ponderHit) {
+            ponderBudget.startMove(budget);
+            result = awaitPondering(search, budget.getTargetTimeLeft());
+            if (result == null && ponderBudget.hasFinishedDepth()) {
+                result = awaitPondering(search, budget.getTimeLeft());
+            }
+        }
+
+        if (result == null) {
+            result = stopPondering(search);
+        }
+
+        // A search stopped before it finished anything only guessed its move, for example the
+        // endgame solver that had not proved anything yet, and the move has to be legal in the
+        // game as it is now. Otherwise the move is searched again.
+        if (!ponderHit || result == null || Float.isNaN(result.score())
+                || !game.getValidMoves(id).contains(result.move())) {
+            return null;
+        }
+
+        return result;
+    }
+
+    /**
+     * Waits for the pondering to end by itself.
+     *
+     * @param search  The pondering.
+     * @param timeout The time in milliseconds to wait at most.
+     * @return The result of the pondering, or null if it did not end in time.
+     */
+    private SearchResult awaitPondering(Future<SearchResult> search, int timeout) {
+        try {
+            return search.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pondering failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops the pondering and waits for it to end. A search that had not started yet keeps the
+     * stop, so it ends right away.
+     *
+     * @param search The pondering.
+     * @return The result of the pondering, or null if the thread was interrupted.
+     */
+    private SearchResult stopPondering(Future<SearchResult> search) {
+        stop();
+        try {
+            return search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pondering failed", e.getCause());
+        }
+    }
+
+    /**
+     * Clears the stop of the last move, before the searches of the next move start. A stop that
+     * arrives after this is kept, even when the search has not started yet.
+     */
+    private void clearStop() {
+        stopped = false;
+        miniMax.reset();
+        if (endgameSolver != null) {
+            endgameSolver.reset();
+        }
+    }
+
+    /**
+     * Searches the position of the search game. Near the end of the game the endgame solver gets
+     * half of the time first, the search only plays when the solver could not prove anything.
+     *
+     * @param budget The time the move may take.
+     * @return The result of the search.
+     */
+    private SearchResult search(TimeBudget budget) {
+        if (endgameSolver != null && searchGame.getBoard().getEmptyCellCount() <= endgameEmpties) {
+            SearchResult result = endgameSolver.search(budget.getTimeLeft() / 2);
+            if (!Float.isNaN(result.score()) || stopped) {
+                return result;
+            }
+        }
+
+        return miniMax.search(budget);
+    }
 }
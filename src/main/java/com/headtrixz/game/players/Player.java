@@ -65,6 +65,28 @@ public abstract class Player {
      */
     public abstract int getMove();
 
+    /**
+     * Tells the player it may think on the opponent's time, its own move has been played. Players
+     * that do not think have nothing to do.
+     */
+    public void ponder() {
+    }
+
+    /**
+     * Tells the player which move the opponent played, before it is played on the board.
+     *
+     * @param move The move of the opponent.
+     */
+    public void onOpponentMove(int move) {
+    }
+
+    /**
+     * Tells the player to stop thinking about its move, because the game ended. Players that do
+     * not think have nothing to stop.
+     */
+    public void stop() {
+    }
+
     /**
      * Request a move from the player with a depth.
      *
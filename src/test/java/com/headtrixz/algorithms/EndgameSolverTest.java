@@ -0,0 +1,193 @@
+package com.headtrixz.algorithms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.headtrixz.game.BitBoard;
+import com.headtrixz.game.Othello;
+import com.headtrixz.game.helpers.BenchmarkHelper;
+import com.headtrixz.game.players.HackyAIPlayer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the endgame solver against a plain alpha-beta negamax that searches to the end of the
+ * game, without the move ordering, parity, stability or transposition table of the solver. The
+ * random positions have few enough empties for the negamax to finish quickly.
+ */
+class EndgameSolverTest {
+    private static final int CELLS = 64;
+    private static final int POSITIONS = 40;
+    private static final int EMPTIES = 11;
+    private static final int TIMEOUT = 60000;
+
+    // Player one to move. Playing at 8 leaves player two without a move, so one of the lines
+    // below the root passes.
+    private static final int[] FORCED_PASS = {
+        2, 2, 2, 0, 0, 0, 0, 1,
+        0, 2, 2, 2, 0, 0, 0, 1,
+        2, 2, 2, 1, 2, 2, 2, 1,
+        2, 2, 2, 2, 2, 2, 2, 1,
+        2, 0, 2, 2, 2, 1, 2, 1,
+        2, 2, 2, 2, 2, 2, 2, 1,
+        2, 2, 2, 2, 2, 2, 1, 1,
+        2, 0, 1, 1, 1, 1, 1, 1,
+    };
+
+    @Test
+    void solvesExactScore() {
+        for (Othello game : createPositions()) {
+            SearchResult result = new EndgameSolver(game).solve(EndgameSolver.Mode.EXACT);
+            assertSolved(game, result, negamax(game));
+        }
+    }
+
+    @Test
+    void provesWinLossDraw() {
+        for (Othello game : createPositions()) {
+            SearchResult result = new EndgameSolver(game).solve(EndgameSolver.Mode.WIN_LOSS_DRAW);
+            int score = negamax(game);
+            assertEquals(Math.signum(score), result.score(), "win, loss or draw");
+            assertEquals(Math.signum(score), Math.signum(negamaxAfter(game, result.move())),
+                "win, loss or draw after the move");
+        }
+    }
+
+    @Test
+    void searchFindsExactScore() {
+        for (Othello game : createPositions()) {
+            SearchResult result = new EndgameSolver(game).search(TIMEOUT);
+            assertSolved(game, result, negamax(game));
+        }
+    }
+
+    @Test
+    void solvesForcedPass() {
+        Othello game = createGame();
+        game.setCells(FORCED_PASS);
+        game.setCurrentPlayer(game.getPlayer(0));
+
+        long player = game.getDiscs(1);
+        long opponent = game.getDiscs(2);
+        long flips = BitBoard.getFlips(player, opponent, 8);
+        assertEquals(0L, BitBoard.getMoves(opponent ^ flips, player | flips | 1L << 8),
+            "moves of the opponent after 8");
+
+        int score = negamax(game);
+        assertSolved(game, new EndgameSolver(game).solve(EndgameSolver.Mode.EXACT), score);
+        assertSolved(game, new EndgameSolver(game).search(TIMEOUT), score);
+    }
+
+    /**
+     * Checks that the result has the exact score and that its move reaches that score.
+     *
+     * @param game   The solved position.
+     * @param result The result of the solver.
+     * @param score  The exact score of the position.
+     */
+    private static void assertSolved(Othello game, SearchResult result, int score) {
+        assertEquals((float) score, result.score(), "score");
+        assertEquals(score, negamaxAfter(game, result.move()), "score after the move");
+        assertEquals(result.move(), result.pv()[0], "first move of the principal variation");
+        assertEquals(game.getBoard().getEmptyCellCount(), result.depth(), "solved empties");
+    }
+
+    /**
+     * Plays random games until they reach the amount of empties, skipping games that end before
+     * or in which the player to move has to pass.
+     *
+     * @return The positions, the same ones on every run.
+     */
+    private static List<Othello> createPositions() {
+        List<Othello> positions = new ArrayList<>();
+        for (int seed = 0; positions.size() < POSITIONS; seed++) {
+            Othello game = createGame();
+            Random random = new Random(seed);
+            int player = 1;
+            while (game.getBoard().getEmptyCellCount() > EMPTIES && game.hasValidMoves(player)) {
+                List<Integer> moves = game.getValidMoves(player);
+                game.setMove(moves.get(random.nextInt(moves.size())), player);
+                player = player % 2 + 1;
+            }
+
+            if (game.getBoard().getEmptyCellCount() == EMPTIES && game.hasValidMoves(player)) {
+                game.setCurrentPlayer(game.getPlayer(player - 1));
+                positions.add(game);
+            }
+        }
+
+        return positions;
+    }
+
+    /**
+     * Creates a game of Othello between two players that are never asked for a move.
+     *
+     * @return The game at the start position.
+     */
+    private static Othello createGame() {
+        Othello game = new Othello();
+        game.initialize(new BenchmarkHelper(null, game), new HackyAIPlayer(game, "one"),
+            new HackyAIPlayer(game, "two"));
+        return game;
+    }
+
+    /**
+     * Returns the exact score of the position for the player to move.
+     *
+     * @param game The position.
+     * @return The final difference in discs with perfect play.
+     */
+    private static int negamax(Othello game) {
+        int player = game.getCurrentPlayer().getId();
+        return negamax(game.getDiscs(player), game.getDiscs(player % 2 + 1), -CELLS, CELLS, false);
+    }
+
+    /**
+     * Returns the exact score of the position after the player to move plays the move.
+     *
+     * @param game The position.
+     * @param move The move to play, it has to be legal.
+     * @return The final difference in discs with perfect play, for the player who moved.
+     */
+    private static int negamaxAfter(Othello game, int move) {
+        int player = game.getCurrentPlayer().getId();
+        long discs = game.getDiscs(player);
+        long opponentDiscs = game.getDiscs(player % 2 + 1);
+        assertTrue((BitBoard.getMoves(discs, opponentDiscs) >>> move & 1) == 1, "legal move");
+
+        long flips = BitBoard.getFlips(discs, opponentDiscs, move);
+        return -negamax(opponentDiscs ^ flips, discs | flips | 1L << move, -CELLS, CELLS, false);
+    }
+
+    /**
+     * Searches to the end of the game, trying the moves in the order of the board. The score is
+     * exact when it falls inside the window.
+     *
+     * @param player   The discs of the player to move.
+     * @param opponent The discs of the opponent.
+     * @param alpha    The lower bound of the window.
+     * @param beta     The upper bound of the window.
+     * @param passed   Whether the opponent just passed.
+     * @return The final difference in discs for the player to move.
+     */
+    private static int negamax(long player, long opponent, int alpha, int beta, boolean passed) {
+        long moves = BitBoard.getMoves(player, opponent);
+        if (moves == 0) {
+            return passed
+                ? Long.bitCount(player) - Long.bitCount(opponent)
+                : -negamax(opponent, player, -beta, -alpha, true);
+        }
+
+        for (; moves != 0 && alpha < beta; moves &= moves - 1) {
+            int move = Long.numberOfTrailingZeros(moves);
+            long flips = BitBoard.getFlips(player, opponent, move);
+            int score = -negamax(opponent ^ flips, player | flips | 1L << move, -beta, -alpha,
+                false);
+            alpha = Math.max(alpha, score);
+        }
+
+        return alpha;
+    }
+}
@@ -0,0 +1,148 @@
+package com.headtrixz.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the stable discs of the bitboards: the masks of full lines against a cell by cell check,
+ * and the stable discs against random continuations of random games.
+ */
+class BitBoardTest {
+    private static final int CELLS = 64;
+    private static final int SIZE = 8;
+    private static final int FILLED_BOARDS = 100000;
+    private static final int GAMES = 200;
+    private static final int CONTINUATIONS = 5;
+
+    // The discs of both players at the start of a game.
+    private static final long START_ONE = 1L << 28 | 1L << 35;
+    private static final long START_TWO = 1L << 27 | 1L << 36;
+
+    @Test
+    void findsFullLines() {
+        // The row, column, diagonal and anti-diagonal through every cell, built cell by cell.
+        long[][] lines = new long[4][CELLS];
+        for (int cell = 0; cell < CELLS; cell++) {
+            int x = cell % SIZE;
+            int y = cell / SIZE;
+            for (int other = 0; other < CELLS; other++) {
+                int otherX = other % SIZE;
+                int otherY = other / SIZE;
+                lines[0][cell] |= otherY == y ? 1L << other : 0;
+                lines[1][cell] |= otherX == x ? 1L << other : 0;
+                lines[2][cell] |= otherX - otherY == x - y ? 1L << other : 0;
+                lines[3][cell] |= otherX + otherY == x + y ? 1L << other : 0;
+            }
+        }
+
+        Random random = new Random(0);
+        for (int i = 0; i < FILLED_BOARDS; i++) {
+            // Most cells filled, so full lines are common.
+            long filled = random.nextLong() | random.nextLong() | random.nextLong();
+
+            long[] full = new long[lines.length];
+            for (int line = 0; line < lines.length; line++) {
+                for (int cell = 0; cell < CELLS; cell++) {
+                    long mask = lines[line][cell];
+                    full[line] |= (filled & mask) == mask ? 1L << cell : 0;
+                }
+            }
+
+            assertEquals(full[0], BitBoard.getFullRows(filled), "full rows");
+            assertEquals(full[1], BitBoard.getFullColumns(filled), "full columns");
+            assertEquals(full[2], BitBoard.getFullLines(filled, 0), "full diagonals");
+            assertEquals(full[3], BitBoard.getFullLines(filled, 1), "full anti-diagonals");
+        }
+    }
+
+    @Test
+    void neverFlipsStableDiscs() {
+        Random random = new Random(0);
+        int stableDiscs = 0;
+        for (int game = 0; game < GAMES; game++) {
+            long player = START_ONE;
+            long opponent = START_TWO;
+            while (true) {
+                long stable = BitBoard.getStableDiscs(player, opponent);
+                long opponentStable = BitBoard.getStableDiscs(opponent, player);
+                assertEquals(stable, stable & player, "stable discs of the player");
+                stableDiscs += Long.bitCount(stable | opponentStable);
+
+                for (int i = 0; i < CONTINUATIONS; i++) {
+                    playOut(player, opponent, stable, opponentStable, random);
+                }
+
+                long moves = BitBoard.getMoves(player, opponent);
+                if (moves == 0 && BitBoard.getMoves(opponent, player) == 0) {
+                    break;
+                }
+
+                if (moves != 0) {
+                    int move = pickMove(moves, random);
+                    long flips = BitBoard.getFlips(player, opponent, move);
+                    player |= flips | 1L << move;
+                    opponent ^= flips;
+                }
+
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+            }
+        }
+
+        assertTrue(stableDiscs > 0, "stable discs were found");
+    }
+
+    /**
+     * Plays random moves to the end of the game and checks after every move that no stable disc
+     * changed colour.
+     *
+     * @param player         The discs of the player to move.
+     * @param opponent       The discs of the opponent.
+     * @param stable         The stable discs of the player.
+     * @param opponentStable The stable discs of the opponent.
+     * @param random         The source of the moves.
+     */
+    private static void playOut(long player, long opponent, long stable, long opponentStable,
+            Random random) {
+        while (true) {
+            long moves = BitBoard.getMoves(player, opponent);
+            if (moves == 0 && BitBoard.getMoves(opponent, player) == 0) {
+                return;
+            }
+
+            if (moves != 0) {
+                int move = pickMove(moves, random);
+                long flips = BitBoard.getFlips(player, opponent, move);
+                player |= flips | 1L << move;
+                opponent ^= flips;
+                assertEquals(opponentStable, opponentStable & opponent, "flipped a stable disc");
+            }
+
+            long swap = player;
+            player = opponent;
+            opponent = swap;
+            swap = stable;
+            stable = opponentStable;
+            opponentStable = swap;
+        }
+    }
+
+    /**
+     * Picks a random move.
+     *
+     * @param moves  The legal moves, at least one.
+     * @param random The source of the move.
+     * @return The cell of the move.
+     */
+    private static int pickMove(long moves, Random random) {
+        for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+            moves &= moves - 1;
+        }
+
+        return Long.numberOfTrailingZeros(moves);
+    }
+}